@@ -1,15 +1,17 @@
 package application.articles;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
-import java.util.Random;
 
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 
 import framework.articles.ScrapedArticle;
+import framework.helpers.DateHelper;
+import framework.html.SelectorCache;
 
 public class DailyMailArticle extends ScrapedArticle {
 
@@ -69,25 +71,24 @@ public class DailyMailArticle extends ScrapedArticle {
 	 */
 	@Override
 	protected Date getPublicationDateFromDocument(Document doc) throws ParseException {
-		SimpleDateFormat dateFormatter = new SimpleDateFormat(this.getPublicationDateFormat(),
-				this.getLocale());
-
 		try {
 			// Normal case
-			Element element = doc.select(this.getPublicationDateSelector()).first();
+			Element element = SelectorCache.selectFirst(this.getPublicationDateSelector(), doc);
 
 			if (element != null) {
-				return dateFormatter.parse(element.ownText());
+				return DateHelper.toDate(DateHelper.parse(element.ownText(),
+						this.getPublicationDateFormat(), this.getLocale()));
 			}
 
 			// (Costly) fallback: Search for object that contains
 			// "Last updated at"
 			// Caution: different time pattern!
-			element = doc.select("div.article-text h1 ~ p:contains(Last updated at").first();
+			element = SelectorCache.selectFirst("div.article-text h1 ~ p:contains(Last updated at",
+					doc);
 
 			if (element != null) {
-				dateFormatter = new SimpleDateFormat("HH:mm d MMM yyyy", this.getLocale());
-				return dateFormatter.parse(element.ownText().replaceAll("Last updated at ", ""));
+				return DateHelper.toDate(DateHelper.parse(element.ownText().replaceAll(
+						"Last updated at ", ""), "HH:mm d MMM yyyy", this.getLocale()));
 			}
 		}
 		catch (ParseException e) {
@@ -99,24 +100,11 @@ public class DailyMailArticle extends ScrapedArticle {
 		return null;
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see framework.articles.ScrapedArticle#beforePopulatingDataHook()
-	 * 
-	 * Artificially slows down the (massively concurrent) execution of
-	 * populateData() to avoid requests from being denied by the server as a
-	 * method of preventing DOS attacks. In order to distribute the requests
-	 * more evenly, the execution is delayed by a random number between 0 and
-	 * 5000 millisesonds.
-	 */
 	@Override
-	protected void beforePopulatingDataHook() {
-		try {
-			Thread.sleep(new Random().nextInt(5000));
-		}
-		catch (InterruptedException e) {
-			// No need to do anything here
-		}
+	protected List<String> getStreamingSelectors() {
+		// Keep the paragraphs searched by the "Last updated at" fallback
+		List<String> selectors = new ArrayList<String>(super.getStreamingSelectors());
+		selectors.add("div.article-text h1 ~ p");
+		return selectors;
 	}
 }
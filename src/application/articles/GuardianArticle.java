@@ -3,12 +3,11 @@ package application.articles;
 import java.io.IOException;
 import java.util.Date;
 
-import org.jsoup.Jsoup;
-
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import framework.articles.Article;
+import framework.html.HtmlTextConverter;
 
 public class GuardianArticle extends Article {
 	protected Fields fields;
@@ -22,21 +21,32 @@ public class GuardianArticle extends Article {
 	}
 
 	@Override
-	public synchronized void populateData() throws IOException {
-		if (this.fields != null) {
-			this.subtitle = this.fields.subtitle;
-			this.fullTextHTML = this.fields.fullTextHTML;
-			
-			// Some Guardian "articles" do not possess any text (cartoons etc)
-			if (this.fullTextHTML != null) {
-				this.fullText = Jsoup.parse(this.fullTextHTML).text();
-			}
-			else {
-				this.log.warning("No text provided for " + this.url);
-			}
-			
+	public void populateData() throws IOException {
+		Fields fields;
+
+		synchronized (this) {
+			fields = this.fields;
 			this.fields = null;
 		}
+
+		if (fields == null) {
+			return;
+		}
+
+		// Some Guardian "articles" do not possess any text (cartoons etc).
+		// The text is extracted without holding the lock of this article.
+		String fullText = (fields.fullTextHTML == null ? null : HtmlTextConverter
+				.toText(fields.fullTextHTML));
+
+		synchronized (this) {
+			this.subtitle = fields.subtitle;
+			this.fullTextHTML = fields.fullTextHTML;
+			this.fullText = fullText;
+		}
+
+		if (fields.fullTextHTML == null) {
+			this.log.warning("No text provided for " + this.url);
+		}
 	}
 	
 	public static class Fields {
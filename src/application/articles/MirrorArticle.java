@@ -1,14 +1,17 @@
 package application.articles;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 
 import org.jsoup.nodes.Document;
 import org.jsoup.select.Elements;
 
 import framework.articles.ScrapedArticle;
+import framework.helpers.DateHelper;
+import framework.html.SelectorCache;
 
 public class MirrorArticle extends ScrapedArticle {
 
@@ -56,17 +59,22 @@ public class MirrorArticle extends ScrapedArticle {
 	 */
 	@Override
 	protected Date getPublicationDateFromDocument(Document doc) throws ParseException {
-		SimpleDateFormat dateFormatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mmZZZ");
-		
 		// Normal case: time element with itemprop and datetime attributes
-		Elements elements = doc.select("time[itemprop=\"datePublished\"][datetime]");
+		Elements elements = SelectorCache.select("time[itemprop=\"datePublished\"][datetime]", doc);
 		
 		if (!elements.isEmpty()) {
 			String publicationDateString = elements.first().attr("datetime");
-			return dateFormatter.parse(publicationDateString);
+			return DateHelper.toDate(DateHelper.parseISO(publicationDateString));
 		}
 		
 		// Fallback
 		return super.getPublicationDateFromDocument(doc);
 	}
+
+	@Override
+	protected List<String> getStreamingSelectors() {
+		List<String> selectors = new ArrayList<String>(super.getStreamingSelectors());
+		selectors.add("time[itemprop=\"datePublished\"][datetime]");
+		return selectors;
+	}
 }
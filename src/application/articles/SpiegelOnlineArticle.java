@@ -1,14 +1,17 @@
 package application.articles;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 
 import org.jsoup.nodes.Document;
 import org.jsoup.select.Elements;
 
 import framework.articles.ScrapedArticle;
+import framework.helpers.DateHelper;
+import framework.html.SelectorCache;
 
 public class SpiegelOnlineArticle extends ScrapedArticle {
 
@@ -30,39 +33,46 @@ public class SpiegelOnlineArticle extends ScrapedArticle {
 		// Initialize variables
 		Elements elements;
 		String publicationDateString;
-		SimpleDateFormat dateFormatter;
 
 		// Normal case: time element with itemprop and datetime attributes
-		elements = doc.select("time[itemprop=\"datePublished\"][datetime]");
+		elements = SelectorCache.select("time[itemprop=\"datePublished\"][datetime]", doc);
 
 		if (!elements.isEmpty()) {
 			publicationDateString = elements.first().attr("datetime");
-			dateFormatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-			return dateFormatter.parse(publicationDateString);
+			return DateHelper.toDate(DateHelper.parse(publicationDateString,
+					"yyyy-MM-dd HH:mm:ss", this.getLocale()));
 		}
 
 		// Second case: span element with itemprop and content attributes
-		elements = doc.select("span[itemprop=\"datePublished\"][content]");
+		elements = SelectorCache.select("span[itemprop=\"datePublished\"][content]", doc);
 
 		if (!elements.isEmpty()) {
 			publicationDateString = elements.first().attr("content");
-			dateFormatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZZZ");
-			return dateFormatter.parse(publicationDateString);
+			return DateHelper.toDate(DateHelper.parseISO(publicationDateString));
 		}
 
 		// Third case: simple span element, fetch date from text
-		elements = doc.select(".module-box .article-function-box-wide span");
+		elements = SelectorCache.select(".module-box .article-function-box-wide span", doc);
 		
 		if (!elements.isEmpty()) {
 			publicationDateString = elements.first().text();
-			dateFormatter = new SimpleDateFormat("dd.MM.yyyy  HH:mm 'Uhr'");
-			return dateFormatter.parse(publicationDateString);
+			return DateHelper.toDate(DateHelper.parse(publicationDateString,
+					"dd.MM.yyyy  HH:mm 'Uhr'", this.getLocale()));
 		}
 
 		// Fallback
 		return super.getPublicationDateFromDocument(doc);
 	}
 
+	@Override
+	protected List<String> getStreamingSelectors() {
+		List<String> selectors = new ArrayList<String>(super.getStreamingSelectors());
+		selectors.add("time[itemprop=\"datePublished\"][datetime]");
+		selectors.add("span[itemprop=\"datePublished\"][content]");
+		selectors.add(".module-box .article-function-box-wide span");
+		return selectors;
+	}
+
 	@Override
 	protected String getSubtitleSelector() {
 		return "#content-main p.article-intro";
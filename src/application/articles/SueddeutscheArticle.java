@@ -1,13 +1,13 @@
 package application.articles;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
 
 import org.jsoup.nodes.Document;
 
 import framework.articles.ScrapedArticle;
+import framework.html.SelectorCache;
 
 public class SueddeutscheArticle extends ScrapedArticle {
 
@@ -29,11 +29,10 @@ public class SueddeutscheArticle extends ScrapedArticle {
 	// publication is stored in SQL format.
 	@Override
 	protected Date getPublicationDateFromDocument(Document doc) throws ParseException {
-		SimpleDateFormat formatter = new SimpleDateFormat(this.getPublicationDateFormat(),
-				this.getLocale());
-		String publicationDateString = doc.select(this.getPublicationDateSelector()).attr("datetime");
+		String publicationDateString = SelectorCache.select(this.getPublicationDateSelector(),
+				doc).attr("datetime");
 		
-		return formatter.parse(publicationDateString);
+		return this.parsePublicationDate(publicationDateString);
 	}
 	
 	@Override
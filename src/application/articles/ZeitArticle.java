@@ -3,13 +3,14 @@ package application.articles;
 import java.io.IOException;
 import java.util.Date;
 
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 
 import com.fasterxml.jackson.annotation.*;
 
 import framework.articles.Article;
+import framework.helpers.ConnectionHelper;
+import framework.html.SelectorCache;
 
 public class ZeitArticle extends Article {
 
@@ -23,13 +24,17 @@ public class ZeitArticle extends Article {
 	}
 
 	@Override
-	public synchronized void populateData() throws IOException {
-		Document doc = Jsoup.connect(this.url).timeout(60000).get();
-		Element articleBody = doc.select(".article-body").first();
+	public void populateData() throws IOException {
+		// Fetch without holding the lock of this article, populate fields
+		// while holding it
+		Document doc = ConnectionHelper.getDocument(this.url, null, true);
+		Element articleBody = SelectorCache.selectFirst(".article-body", doc);
 
 		if (articleBody != null && articleBody.childNodeSize() > 0) {
-			this.fullText = articleBody.text();
-			this.fullTextHTML = articleBody.html();
+			synchronized (this) {
+				this.fullText = articleBody.text();
+				this.fullTextHTML = articleBody.html();
+			}
 		}
 		else {
 			this.log.warning("Unable to retrieve ZEIT article fullText for url " + this.url);
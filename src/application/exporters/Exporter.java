@@ -1,7 +1,9 @@
 package application.exporters;
 
 import framework.articles.Article;
+import framework.helpers.BloomFilter;
 import framework.helpers.ConfigReader;
+import framework.helpers.DateHelper;
 import framework.helpers.LoggerGenerator;
 
 import java.sql.Connection;
@@ -13,23 +15,42 @@ import java.sql.Statement;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.logging.Logger;
 
 import application.helpers.DataSource;
+import application.wrappers.ArticleListener;
 import application.wrappers.Wrapper;
 
-public class Exporter implements framework.helpers.Exporter {
+public class Exporter implements framework.helpers.Exporter, ArticleListener {
 	protected Connection con;
 	protected String filename;
 	protected Map<DataSource, Map<String, Article>> result;
 	protected final Logger log = LoggerGenerator.getLogger();
 
+	// Whether articles already stored are kept (true) or all tables are
+	// emptied first (false), read from config
+	protected boolean incremental;
+
+	// URLs of all articles stored, only used in incremental mode. Membership
+	// is confirmed by an exact lookup, see isKnown()
+	protected BloomFilter storedUrls;
+
+	protected PreparedStatement selectArticleId;
+	protected PreparedStatement insertArticle;
+	protected PreparedStatement updateArticle;
+	protected PreparedStatement insertArticleKeyword;
+
 	public Exporter(Map<DataSource, Map<String, Article>> result, String databaseFileName) throws SQLException {
 		this.result = result;
 		this.filename = databaseFileName;
+		this.incremental = Boolean.parseBoolean(ConfigReader.getConfig().getProperty(
+				"Exporter.incremental", "false"));
 
 		// Connect to database
 		this.con = DriverManager.getConnection("jdbc:sqlite:" + this.filename);
@@ -37,6 +58,14 @@ public class Exporter implements framework.helpers.Exporter {
 		this.con.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
 
 		this.setupDatabase();
+		this.prepareStatements();
+	}
+
+	// Constructs an Exporter that does not export a result map, but is passed
+	// the articles one by one as an ArticleListener (see
+	// Wrapper.searchArticles())
+	public Exporter(String databaseFileName) throws SQLException {
+		this(new HashMap<DataSource, Map<String, Article>>(), databaseFileName);
 	}
 
 	protected void setupDatabase() throws SQLException {
@@ -56,98 +85,257 @@ public class Exporter implements framework.helpers.Exporter {
 		setup.addBatch("CREATE INDEX IF NOT EXISTS article_keywords_idx_keyword ON article_keywords (keyword);");
 		setup.addBatch("CREATE INDEX IF NOT EXISTS article_keywords_idx_article_id ON article_keywords (article_id);");
 
-		// Empty tables
-		setup.addBatch("DELETE FROM article;");
-		setup.addBatch("DELETE FROM article_keywords;");
+		if (this.incremental) {
+			// Keep articles, but make keywords unique per article so that
+			// they can be merged by INSERT OR IGNORE (remove duplicates left
+			// by earlier versions first)
+			setup.addBatch("DELETE FROM article_keywords WHERE id NOT IN (SELECT MIN(id) "
+					+ "FROM article_keywords GROUP BY article_id, keyword);");
+			setup.addBatch("CREATE UNIQUE INDEX IF NOT EXISTS article_keywords_idx_unique "
+					+ "ON article_keywords (article_id, keyword);");
 
-		setup.executeBatch();
-		this.con.commit();
+			setup.executeBatch();
+			this.con.commit();
+
+			this.loadStoredUrls(setup);
+			this.con.commit();
+		}
+		else {
+			// Empty tables
+			setup.addBatch("DELETE FROM article;");
+			setup.addBatch("DELETE FROM article_keywords;");
+
+			setup.executeBatch();
+			this.con.commit();
+		}
 
 		// Cannot be set within transaction
 		this.con.setAutoCommit(true);
-		setup.execute("VACUUM;");
+
+		if (!this.incremental) {
+			setup.execute("VACUUM;");
+		}
+
 		setup.execute("PRAGMA foreign_keys = ON;");
 		this.con.setAutoCommit(false);
 	}
 
-	public void exportArticles() {
-		try {
-			// Prepare statement for INSERTing article rows
-			PreparedStatement insertArticle = this.con.prepareStatement("INSERT INTO article "
-					+ "(url, title, subtitle, publicationDate, fullText, fullTextHTML, source) "
-					+ "VALUES (?, ?, ?, datetime(?), ?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+	// Fills storedUrls with the URLs of all articles stored, sized for twice
+	// the number of articles stored (room for the articles added by this and
+	// following runs)
+	protected void loadStoredUrls(Statement statement) throws SQLException {
+		Properties config = ConfigReader.getConfig();
+		double falsePositiveRate = Double.parseDouble(config.getProperty(
+				"Exporter.incremental.falsePositiveRate", "0.01"));
+		long numArticles = 0;
+
+		try (ResultSet count = statement.executeQuery("SELECT COUNT(*) FROM article;")) {
+			if (count.next()) {
+				numArticles = count.getLong(1);
+			}
+		}
 
-			// Prepare statement for INSERTing article_keywords rows
-			PreparedStatement insertArticleKeyword = this.con
-					.prepareStatement("INSERT INTO article_keywords " + "(keyword, article_id) "
-							+ "VALUES (?, ?)");
+		this.storedUrls = new BloomFilter(Math.max(10000, 2 * numArticles), falsePositiveRate);
 
-			// Initialize date formatter
-			SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX");
+		try (ResultSet urls = statement.executeQuery("SELECT url FROM article;")) {
+			while (urls.next()) {
+				this.storedUrls.add(urls.getString(1));
+			}
+		}
+
+		this.log.info("Incremental export: " + numArticles + " articles already stored in "
+				+ this.filename);
+	}
 
-			// Helper variables
-			int affectedRows = 0;
-			long articleId = 0;
+	protected void prepareStatements() throws SQLException {
+		this.selectArticleId = this.con.prepareStatement("SELECT id FROM article WHERE url = ?");
+
+		// Prepare statement for INSERTing article rows
+		this.insertArticle = this.con.prepareStatement("INSERT INTO article "
+				+ "(url, title, subtitle, publicationDate, fullText, fullTextHTML, source) "
+				+ "VALUES (?, ?, ?, datetime(?), ?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+
+		// Prepare statement for UPDATEing article rows (same parameters as
+		// insertArticle, plus id)
+		this.updateArticle = this.con.prepareStatement("UPDATE article SET "
+				+ "url = ?, title = ?, subtitle = ?, publicationDate = datetime(?), "
+				+ "fullText = ?, fullTextHTML = ?, source = ? WHERE id = ?");
+
+		// Prepare statement for INSERTing article_keywords rows. Keywords
+		// already stored for the article are ignored in incremental mode (see
+		// setupDatabase())
+		this.insertArticleKeyword = this.con.prepareStatement("INSERT OR IGNORE INTO "
+				+ "article_keywords (keyword, article_id) VALUES (?, ?)");
+	}
 
+	public void exportArticles() {
+		try {
 			// Iterate over data sources, get articles for each data source
 			for (DataSource source : this.result.keySet()) {
 				Map<String, Article> articles = this.result.get(source);
 
 				// Iterate over articles, insert into database
 				for (Article article : articles.values()) {
-					Date publicationDate = article.getPublicationDate();
-
-					insertArticle.setString(1, article.getUrl());
-					insertArticle.setString(2, article.getTitle());
-					insertArticle.setString(3, article.getSubtitle());
-					insertArticle.setString(4,
-							(publicationDate == null ? null : formatter.format(publicationDate)));
-					insertArticle.setString(5, article.getFullText());
-					insertArticle.setString(6, article.getFullTextHTML());
-					insertArticle.setString(7, source.getName());
-
-					// Check number of affected rows (must be 1)
-					affectedRows = insertArticle.executeUpdate();
-
-					if (affectedRows != 1) {
-						throw new SQLException();
-					}
-
-					// Retrieve id of inserted article for article keywords
-					ResultSet generatedKeys = insertArticle.getGeneratedKeys();
-
-					if (generatedKeys.next()) {
-						articleId = generatedKeys.getLong(1);
-					}
-					else {
-						throw new SQLException();
-					}
-
-					// Iterate over article keywords and insert into database
-					if (article.getKeywords() != null) {
-						for (String keyword : article.getKeywords()) {
-							insertArticleKeyword.setString(1, keyword);
-							insertArticleKeyword.setLong(2, articleId);
-
-							insertArticleKeyword.executeUpdate();
-						}
-					}
-
-					this.con.commit();
+					this.exportArticle(source, article);
 				}
 			}
 		}
 		catch (SQLException e) {
-			this.log.severe("SQLException when trying to export articles, stack trace follows:");
+			this.logSQLException(e);
+		}
+	}
+
+	// Inserts an article and its keywords into the database. In incremental
+	// mode, an article already stored is updated instead.
+	protected synchronized void exportArticle(DataSource source, Article article)
+			throws SQLException {
+		long articleId = (this.incremental ? this.findArticleId(article.getUrl()) : -1);
+		PreparedStatement statement = (articleId == -1 ? this.insertArticle
+				: this.updateArticle);
+		Date publicationDate = article.getPublicationDate();
+
+		statement.setString(1, article.getUrl());
+		statement.setString(2, article.getTitle());
+		statement.setString(3, article.getSubtitle());
+		statement.setString(4, (publicationDate == null ? null : DateHelper.format(
+				publicationDate, "yyyy-MM-dd'T'HH:mm:ssXXX")));
+		statement.setString(5, article.getFullText());
+		statement.setString(6, article.getFullTextHTML());
+		statement.setString(7, source.getName());
+
+		if (articleId != -1) {
+			statement.setLong(8, articleId);
+		}
+
+		// Check number of affected rows (must be 1)
+		int affectedRows = statement.executeUpdate();
 
-			for (StackTraceElement element : e.getStackTrace()) {
-				this.log.severe(element.toString());
+		if (affectedRows != 1) {
+			throw new SQLException();
+		}
+
+		// Retrieve id of inserted article for article keywords
+		if (articleId == -1) {
+			ResultSet generatedKeys = statement.getGeneratedKeys();
+
+			if (generatedKeys.next()) {
+				articleId = generatedKeys.getLong(1);
 			}
+			else {
+				throw new SQLException();
+			}
+		}
 
-			this.log.severe("End of stack trace");
+		this.insertKeywords(article, articleId);
+		this.con.commit();
+
+		if (this.storedUrls != null) {
+			this.storedUrls.add(article.getUrl());
 		}
 	}
 
+	// Adds the keywords of an article already stored that are not yet stored
+	protected synchronized void mergeKeywords(Article article) throws SQLException {
+		long articleId = this.findArticleId(article.getUrl());
+
+		if (articleId == -1) {
+			this.log.warning("Cannot merge keywords of article " + article.getUrl()
+					+ ", article not stored");
+			return;
+		}
+
+		this.insertKeywords(article, articleId);
+		this.con.commit();
+	}
+
+	protected void insertKeywords(Article article, long articleId) throws SQLException {
+		// Iterate over article keywords and insert into database
+		if (article.getKeywords() != null) {
+			for (String keyword : article.getKeywords()) {
+				this.insertArticleKeyword.setString(1, keyword);
+				this.insertArticleKeyword.setLong(2, articleId);
+
+				this.insertArticleKeyword.executeUpdate();
+			}
+		}
+	}
+
+	// Returns the id of the article stored with the given URL, or -1 if no
+	// such article is stored
+	protected synchronized long findArticleId(String url) throws SQLException {
+		this.selectArticleId.setString(1, url);
+
+		try (ResultSet rs = this.selectArticleId.executeQuery()) {
+			return (rs.next() ? rs.getLong(1) : -1);
+		}
+	}
+
+	@Override
+	public void articleFound(DataSource source, Article article) {
+		try {
+			this.exportArticle(source, article);
+		}
+		catch (SQLException e) {
+			this.rollback();
+			this.logSQLException(e);
+		}
+	}
+
+	@Override
+	public void articleUpdated(DataSource source, Article article) {
+		try {
+			this.mergeKeywords(article);
+		}
+		catch (SQLException e) {
+			this.rollback();
+			this.logSQLException(e);
+		}
+	}
+
+	// In incremental mode, articles already stored are not populated again.
+	// The Bloom filter rules out most new articles without a database lookup;
+	// all others are confirmed by looking up the URL.
+	@Override
+	public boolean isKnown(DataSource source, String url) {
+		if (this.storedUrls == null || !this.storedUrls.mightContain(url)) {
+			return false;
+		}
+
+		try {
+			return this.findArticleId(url) != -1;
+		}
+		catch (SQLException e) {
+			// Treat as unknown: article is populated and updated
+			this.log.warning("SQLException when looking up article " + url + ": "
+					+ e.getMessage());
+			return false;
+		}
+	}
+
+	@Override
+	public void knownArticleFound(DataSource source, Article article) {
+		this.articleUpdated(source, article);
+	}
+
+	protected synchronized void rollback() {
+		try {
+			this.con.rollback();
+		}
+		catch (SQLException e) {
+			this.log.warning("SQLException when rolling back: " + e.getMessage());
+		}
+	}
+
+	protected void logSQLException(SQLException e) {
+		this.log.severe("SQLException when trying to export articles, stack trace follows:");
+
+		for (StackTraceElement element : e.getStackTrace()) {
+			this.log.severe(element.toString());
+		}
+
+		this.log.severe("End of stack trace");
+	}
+
 	public static void main(String[] args) {
 		if (args.length < 4) {
 			throw new IllegalArgumentException(
@@ -178,23 +366,37 @@ public class Exporter implements framework.helpers.Exporter {
 		// Get data sources to scrape from config
 		String usedDataSources = ConfigReader.getConfig().getProperty(
 				"General.DataSource.usedDataSources");
-		Map<DataSource, Map<String, Article>> articles;
+		List<DataSource> sources = new ArrayList<DataSource>();
 
-		// Get articles from Wrapper
 		if (usedDataSources.equals("ALL")) {
-			articles = Wrapper.searchArticles(keywords, fromDate, toDate);
+			sources.addAll(Arrays.asList(DataSource.values()));
 		}
 		else {
-			List<DataSource> sources = new ArrayList<DataSource>();
-
 			for (String usedDataSource : usedDataSources.split(",\\s*")) {
 				DataSource source = DataSource.valueOf(usedDataSource);
 				sources.add(source);
 			}
+		}
 
-			articles = Wrapper.searchArticles(keywords, fromDate, toDate, sources);
+		// Incremental mode: export articles while searching, so that articles
+		// already stored are not populated again
+		if (Boolean.parseBoolean(ConfigReader.getConfig().getProperty("Exporter.incremental",
+				"false"))) {
+			try {
+				Exporter export = new Exporter(args[0]);
+				Wrapper.searchArticles(keywords, fromDate, toDate, sources, export);
+			}
+			catch (SQLException e) {
+				e.printStackTrace();
+			}
+
+			return;
 		}
 
+		// Get articles from Wrapper
+		Map<DataSource, Map<String, Article>> articles = Wrapper.searchArticles(keywords,
+				fromDate, toDate, sources);
+
 		// Export articles
 		try {
 			Exporter export = new Exporter(articles, args[0]);
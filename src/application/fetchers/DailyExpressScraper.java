@@ -7,9 +7,11 @@ import org.jsoup.nodes.Document;
 
 import application.articles.DailyExpressArticle;
 import framework.articles.Article;
+import framework.fetchers.ArticleSink;
 import framework.fetchers.ReactiveScraper;
 import framework.filters.PostPopulatingArticleFilter;
 import framework.filters.PublicationDateFilter;
+import framework.html.SelectorCache;
 
 public class DailyExpressScraper extends ReactiveScraper {
 	// Due to the very special nature of the Daily Express search functionality,
@@ -56,8 +58,8 @@ public class DailyExpressScraper extends ReactiveScraper {
 		// Get keyword and number of framework.results for URL construction, set
 		// this.fetched
 		this.fetched = true;
-		String numResults = doc.select("form#search_form p.hint b").text().trim();
-		String keyword = doc.select("form#search_form p.hint em").text().trim();
+		String numResults = SelectorCache.select("form#search_form p.hint b", doc).text().trim();
+		String keyword = SelectorCache.select("form#search_form p.hint em", doc).text().trim();
 
 		StringBuilder sb = new StringBuilder(this.baseURL);
 		sb.append(keyword);
@@ -110,6 +112,11 @@ public class DailyExpressScraper extends ReactiveScraper {
 		return super.searchArticles(keywords, fromDate, toDate, 10);
 	}
 
+	@Override
+	public void searchArticles(String[] keywords, Date fromDate, Date toDate, ArticleSink sink) {
+		super.searchArticles(keywords, fromDate, toDate, 10, sink);
+	}
+
 	// As the Daily Mail search functionality does not allow specifying a date
 	// range, apply date filter after populating the articles
 	@Override
@@ -5,6 +5,7 @@ import java.util.Map;
 
 import application.articles.DailyMailArticle;
 import framework.articles.Article;
+import framework.fetchers.ArticleSink;
 import framework.fetchers.PredictiveScraper;
 import framework.filters.PostPopulatingArticleFilter;
 import framework.filters.PublicationDateFilter;
@@ -45,6 +46,11 @@ public class DailyMailScraper extends PredictiveScraper {
 		return super.searchArticles(keywords, fromDate, toDate, 50);
 	}
 
+	@Override
+	public void searchArticles(String[] keywords, Date fromDate, Date toDate, ArticleSink sink) {
+		super.searchArticles(keywords, fromDate, toDate, 50, sink);
+	}
+
 	@Override
 	protected String getSearchURL(String keyword, Date fromDate, Date toDate, int offset, int limit) {
 		StringBuilder sb = new StringBuilder(this.baseURL);
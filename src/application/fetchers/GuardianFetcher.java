@@ -1,6 +1,5 @@
 package application.fetchers;
 
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Map;
 
@@ -8,6 +7,8 @@ import application.helpers.ApiKey;
 import application.results.GuardianResult;
 import framework.articles.Article;
 import framework.fetchers.ApiFetcher;
+import framework.fetchers.ArticleSink;
+import framework.helpers.DateHelper;
 
 public class GuardianFetcher extends ApiFetcher {
 
@@ -18,7 +19,6 @@ public class GuardianFetcher extends ApiFetcher {
 
 	@Override
 	protected String getSearchURL(String keyword, Date fromDate, Date toDate, int offset, int limit) {
-		SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd");
 		StringBuilder sb = new StringBuilder(this.baseURL);
 
 		// Keyword
@@ -27,9 +27,9 @@ public class GuardianFetcher extends ApiFetcher {
 
 		// Date range
 		sb.append("&from-date=");
-		sb.append(formatter.format(fromDate));
+		sb.append(DateHelper.format(fromDate, "yyyy-MM-dd"));
 		sb.append("&to-date=");
-		sb.append(formatter.format(toDate));
+		sb.append(DateHelper.format(toDate, "yyyy-MM-dd"));
 
 		// Pagination: Guardian API uses pages (1-based counting) instead of
 		// offsets
@@ -53,4 +53,17 @@ public class GuardianFetcher extends ApiFetcher {
 	public Map<String, Article> searchArticles(String[] keywords, Date fromDate, Date toDate) {
 		return super.searchArticles(keywords, fromDate, toDate, GuardianResult.class, "response", 50);
 	}
+
+	@Override
+	public void searchArticles(String[] keywords, Date fromDate, Date toDate, ArticleSink sink) {
+		super.searchArticles(keywords, fromDate, toDate, GuardianResult.class, "response", 50,
+				sink);
+	}
+
+	// Guardian article URLs contain the publication date, e.g.
+	// http://www.theguardian.com/world/2015/mar/02/...
+	@Override
+	protected String getURLDatePattern() {
+		return "/(?<year>\\d{4})/(?<month>[a-z]{3})/(?<day>\\d{2})/";
+	}
 }
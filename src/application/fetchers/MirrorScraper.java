@@ -1,14 +1,15 @@
 package application.fetchers;
 
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Map;
 
 import application.articles.MirrorArticle;
 import framework.articles.Article;
+import framework.fetchers.ArticleSink;
 import framework.fetchers.PredictiveScraper;
 import framework.filters.PrePopulatingArticleFilter;
 import framework.filters.URLSuffixFilter;
+import framework.helpers.DateHelper;
 
 public class MirrorScraper extends PredictiveScraper {
 
@@ -46,18 +47,22 @@ public class MirrorScraper extends PredictiveScraper {
 		return super.searchArticles(keywords, fromDate, toDate, 50);
 	}
 
+	@Override
+	public void searchArticles(String[] keywords, Date fromDate, Date toDate, ArticleSink sink) {
+		super.searchArticles(keywords, fromDate, toDate, 50, sink);
+	}
+
 	@Override
 	protected String getSearchURL(String keyword, Date fromDate, Date toDate, int offset, int limit) {
-		SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
 		StringBuilder sb = new StringBuilder(this.baseURL);
 
 		sb.append("&searchString=");
 		sb.append(keyword);
 
 		sb.append("&dateRange=");
-		sb.append(formatter.format(fromDate));
+		sb.append(DateHelper.format(fromDate, "yyyy-MM-dd'T'HH:mm:ss'Z'"));
 		sb.append(" TO ");
-		sb.append(formatter.format(toDate));
+		sb.append(DateHelper.format(toDate, "yyyy-MM-dd'T'HH:mm:ss'Z'"));
 
 		sb.append("&pageLength=");
 		sb.append(limit);
@@ -1,12 +1,13 @@
 package application.fetchers;
 
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Map;
 
 import application.articles.SpiegelArticle;
 import framework.articles.Article;
+import framework.fetchers.ArticleSink;
 import framework.fetchers.PredictiveScraper;
+import framework.helpers.DateHelper;
 
 public class SpiegelScraper extends PredictiveScraper {
 
@@ -44,19 +45,23 @@ public class SpiegelScraper extends PredictiveScraper {
 		return super.searchArticles(keywords, fromDate, toDate, 20);
 	}
 
+	@Override
+	public void searchArticles(String[] keywords, Date fromDate, Date toDate, ArticleSink sink) {
+		super.searchArticles(keywords, fromDate, toDate, 20, sink);
+	}
+
 	@Override
 	protected String getSearchURL(String keyword, Date fromDate, Date toDate, int offset, int limit) {
-		SimpleDateFormat formatter = new SimpleDateFormat("dd.MM.yyyy");
 		StringBuilder sb = new StringBuilder(this.baseURL);
 
 		sb.append("&suchbegriff=");
 		sb.append(keyword);
 
 		sb.append("&fromDate=");
-		sb.append(formatter.format(fromDate));
+		sb.append(DateHelper.format(fromDate, "dd.MM.yyyy"));
 
 		sb.append("&toDate=");
-		sb.append(formatter.format(toDate));
+		sb.append(DateHelper.format(toDate, "dd.MM.yyyy"));
 
 		sb.append("&pageNumber=");
 		sb.append(((int) offset / limit) + 1);
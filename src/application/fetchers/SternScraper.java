@@ -5,6 +5,7 @@ import java.util.Map;
 
 import application.articles.SternArticle;
 import framework.articles.Article;
+import framework.fetchers.ArticleSink;
 import framework.fetchers.PredictiveScraper;
 
 public class SternScraper extends PredictiveScraper {
@@ -43,6 +44,11 @@ public class SternScraper extends PredictiveScraper {
 		return super.searchArticles(keywords, fromDate, toDate, 10);
 	}
 
+	@Override
+	public void searchArticles(String[] keywords, Date fromDate, Date toDate, ArticleSink sink) {
+		super.searchArticles(keywords, fromDate, toDate, 10, sink);
+	}
+
 	@SuppressWarnings("deprecation")
 	@Override
 	protected String getSearchURL(String keyword, Date fromDate, Date toDate, int offset, int limit) {
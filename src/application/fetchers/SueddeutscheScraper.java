@@ -1,15 +1,21 @@
 package application.fetchers;
 
+import java.text.ParseException;
+import java.time.ZonedDateTime;
 import java.util.Date;
+import java.util.Locale;
 import java.util.Map;
 
 import org.jsoup.nodes.Element;
 
 import application.articles.SueddeutscheArticle;
 import framework.articles.Article;
+import framework.fetchers.ArticleSink;
 import framework.fetchers.PredictiveScraper;
 import framework.filters.PostPopulatingArticleFilter;
 import framework.filters.PublicationDateFilter;
+import framework.helpers.DateHelper;
+import framework.html.SelectorCache;
 
 public class SueddeutscheScraper extends PredictiveScraper {
 
@@ -66,7 +72,7 @@ public class SueddeutscheScraper extends PredictiveScraper {
 	// importantly, the headline, ownText() must be used instead of text()
 	@Override
 	protected String getTitleFromSearchResult(Element articleElement) {
-		return articleElement.select(this.getTitleSelector()).first().ownText();
+		return SelectorCache.selectFirst(this.getTitleSelector(), articleElement).ownText();
 	}
 
 	@Override
@@ -74,11 +80,45 @@ public class SueddeutscheScraper extends PredictiveScraper {
 		return "a.entry-title";
 	}
 
+	// Search results are sorted by publication date (see getSearchURL()), so
+	// paging can stop as soon as a page only contains older articles
+	@Override
+	protected boolean isSortedByDateDescending() {
+		return true;
+	}
+
+	// The publication date of a search result is stored in the datetime
+	// attribute of its <time> element. Only the day is used (as the end of
+	// that day), so that the returned date is never earlier than the actual
+	// publication date.
+	@Override
+	protected Date getDateFromSearchResult(Element articleElement) {
+		Element time = SelectorCache.selectFirst("time[datetime]", articleElement);
+
+		if (time == null) {
+			return null;
+		}
+
+		try {
+			ZonedDateTime day = DateHelper.parse(time.attr("datetime"), "yyyy-MM-dd",
+					Locale.GERMANY);
+			return DateHelper.toDate(day.plusDays(1).minusNanos(1));
+		}
+		catch (ParseException e) {
+			return null;
+		}
+	}
+
 	@Override
 	public Map<String, Article> searchArticles(String[] keywords, Date fromDate, Date toDate) {
 		return super.searchArticles(keywords, fromDate, toDate, 15);
 	}
 
+	@Override
+	public void searchArticles(String[] keywords, Date fromDate, Date toDate, ArticleSink sink) {
+		super.searchArticles(keywords, fromDate, toDate, 15, sink);
+	}
+
 	// As Sueddeutsche does not allow specifying a date range, apply date filter
 	// after populating articles
 	@Override
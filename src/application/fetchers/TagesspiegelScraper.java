@@ -5,6 +5,7 @@ import java.util.Map;
 
 import application.articles.TagesspiegelArticle;
 import framework.articles.Article;
+import framework.fetchers.ArticleSink;
 import framework.fetchers.PredictiveScraper;
 
 public class TagesspiegelScraper extends PredictiveScraper {
@@ -43,6 +44,11 @@ public class TagesspiegelScraper extends PredictiveScraper {
 		return super.searchArticles(keywords, fromDate, toDate, 20);
 	}
 
+	@Override
+	public void searchArticles(String[] keywords, Date fromDate, Date toDate, ArticleSink sink) {
+		super.searchArticles(keywords, fromDate, toDate, 20, sink);
+	}
+
 	@Override
 	@SuppressWarnings("deprecation")
 	protected String getSearchURL(String keyword, Date fromDate, Date toDate, int offset, int limit) {
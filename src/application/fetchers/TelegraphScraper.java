@@ -1,12 +1,13 @@
 package application.fetchers;
 
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Map;
 
 import application.articles.TelegraphArticle;
 import framework.articles.Article;
+import framework.fetchers.ArticleSink;
 import framework.fetchers.PredictiveScraper;
+import framework.helpers.DateHelper;
 
 public class TelegraphScraper extends PredictiveScraper {
 
@@ -19,20 +20,23 @@ public class TelegraphScraper extends PredictiveScraper {
 		return super.searchArticles(keywords, fromDate, toDate, 20);
 	}
 
+	@Override
+	public void searchArticles(String[] keywords, Date fromDate, Date toDate, ArticleSink sink) {
+		super.searchArticles(keywords, fromDate, toDate, 20, sink);
+	}
+
 	@Override
 	protected String getSearchURL(String keyword, Date fromDate, Date toDate, int offset, int limit) {
-		SimpleDateFormat fromDateFormatter = new SimpleDateFormat("yyyy-MM-dd");
-		SimpleDateFormat toDateFormatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.'999Z'");
 		StringBuilder sb = new StringBuilder(this.baseURL);
 
 		sb.append("&queryText=");
 		sb.append(keyword);
 
 		sb.append("&range=");
-		sb.append(fromDateFormatter.format(fromDate));
+		sb.append(DateHelper.format(fromDate, "yyyy-MM-dd"));
 
 		sb.append("&rangeTo=");
-		sb.append(toDateFormatter.format(toDate));
+		sb.append(DateHelper.format(toDate, "yyyy-MM-dd'T'HH:mm:ss.'999Z'"));
 		
 		sb.append("&p=");
 		sb.append((int) (offset / limit + 1));
@@ -1,12 +1,13 @@
 package application.fetchers;
 
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Map;
 
 import application.results.ZeitResult;
 import framework.articles.*;
 import framework.fetchers.ApiFetcher;
+import framework.fetchers.ArticleSink;
+import framework.helpers.DateHelper;
 
 public class ZeitFetcher extends ApiFetcher {
 
@@ -20,9 +21,13 @@ public class ZeitFetcher extends ApiFetcher {
 		return super.searchArticles(keywords, fromDate, toDate, ZeitResult.class, null, 1000);
 	}
 
+	@Override
+	public void searchArticles(String[] keywords, Date fromDate, Date toDate, ArticleSink sink) {
+		super.searchArticles(keywords, fromDate, toDate, ZeitResult.class, null, 1000, sink);
+	}
+
 	@Override
 	protected String getSearchURL(String keyword, Date fromDate, Date toDate, int offset, int limit) {
-		SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
 		StringBuilder sb = new StringBuilder(this.baseURL);
 
 		// Keyword
@@ -31,9 +36,9 @@ public class ZeitFetcher extends ApiFetcher {
 
 		// Date range
 		sb.append(" AND release_date:[");
-		sb.append(formatter.format(fromDate));
+		sb.append(DateHelper.format(fromDate, "yyyy-MM-dd'T'HH:mm:ss'Z'"));
 		sb.append(" TO ");
-		sb.append(formatter.format(toDate));
+		sb.append(DateHelper.format(toDate, "yyyy-MM-dd'T'HH:mm:ss'Z'"));
 		sb.append("]");
 
 		// Pagination
@@ -52,4 +57,11 @@ public class ZeitFetcher extends ApiFetcher {
 
 		return sb.toString();
 	}
+
+	// Zeit article URLs contain the year and month of publication, e.g.
+	// http://www.zeit.de/politik/ausland/2015-03/...
+	@Override
+	protected String getURLDatePattern() {
+		return "/(?<year>\\d{4})-(?<month>\\d{2})/";
+	}
 }
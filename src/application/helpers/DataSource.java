@@ -12,32 +12,86 @@ import application.fetchers.TagesspiegelScraper;
 import application.fetchers.TelegraphScraper;
 import application.fetchers.ZeitFetcher;
 import framework.fetchers.*;
+import framework.helpers.ConfigReader;
+import framework.http.HttpClient;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
 
 public enum DataSource {
-	GUARDIAN("The Guardian", new GuardianFetcher()),
-	SPIEGELONLINE("Spiegel Online", new SpiegelOnlineScraper()),
-	SPIEGEL("Der Spiegel", new SpiegelScraper()),
-	TELEGRAPH("The Telegraph", new TelegraphScraper()),
-	ZEIT("Die Zeit", new ZeitFetcher()),
-	TAGESSPIEGEL("Der Tagesspiegel", new TagesspiegelScraper()),
-	STERN("Stern", new SternScraper()),
-	MIRROR("Mirror", new MirrorScraper()),
-	DAILYMAIL("Daily Mail Online", new DailyMailScraper()),
-	DAILYEXPRESS("Daily Express", new DailyExpressScraper()),
-	SUEDDEUTSCHE("Sddeutsche Zeitung", new SueddeutscheScraper());
+	GUARDIAN("The Guardian", "guardianapis.com", new GuardianFetcher()),
+	SPIEGELONLINE("Spiegel Online", "spiegel.de", new SpiegelOnlineScraper()),
+	SPIEGEL("Der Spiegel", "spiegel.de", new SpiegelScraper()),
+	TELEGRAPH("The Telegraph", "telegraph.co.uk", new TelegraphScraper()),
+	ZEIT("Die Zeit", "zeit.de", new ZeitFetcher()),
+	TAGESSPIEGEL("Der Tagesspiegel", "tagesspiegel.de", new TagesspiegelScraper()),
+	STERN("Stern", "stern.de", new SternScraper()),
+	MIRROR("Mirror", "mirror.co.uk", new MirrorScraper()),
+	DAILYMAIL("Daily Mail Online", "dailymail.co.uk", new DailyMailScraper()),
+	DAILYEXPRESS("Daily Express", "express.co.uk", new DailyExpressScraper()),
+	SUEDDEUTSCHE("Sddeutsche Zeitung", "sueddeutsche.de", new SueddeutscheScraper());
+
+	static {
+		registerRateLimits();
+	}
 
 	private String name;
+	private String domain;
 	private Fetcher fetcher;
 	
-	DataSource(String name, Fetcher fetcher) {
+	DataSource(String name, String domain, Fetcher fetcher) {
 		this.name = name;
+		this.domain = domain;
 		this.fetcher = fetcher;
 	}
 	
+	/**
+	 * Reads the DataSource.*.requestsPerSecond and DataSource.*.burst
+	 * properties of all data sources from config and sets the respective rate
+	 * limits on the shared HttpClient, which enforces them for every request
+	 * to the data source's domain (search pages as well as article pages). If
+	 * multiple data sources share a domain, the lowest configured rate
+	 * applies.
+	 */
+	private static void registerRateLimits() {
+		Properties config = ConfigReader.getConfig();
+		Map<String, DataSource> strictestSources = new HashMap<String, DataSource>();
+		
+		for (DataSource source : DataSource.values()) {
+			if (source.getRequestsPerSecond(config) <= 0) {
+				continue;
+			}
+			
+			DataSource other = strictestSources.get(source.domain);
+			
+			if (other == null
+					|| source.getRequestsPerSecond(config) < other.getRequestsPerSecond(config)) {
+				strictestSources.put(source.domain, source);
+			}
+		}
+		
+		for (DataSource source : strictestSources.values()) {
+			int burst = Integer.parseInt(config.getProperty("DataSource." + source.name()
+					+ ".burst", "1"));
+			HttpClient.getInstance().setRateLimit(source.domain,
+					source.getRequestsPerSecond(config), burst);
+		}
+	}
+	
+	private double getRequestsPerSecond(Properties config) {
+		return Double.parseDouble(config.getProperty("DataSource." + this.name()
+				+ ".requestsPerSecond", "0"));
+	}
+	
 	public String getName() {
 		return this.name;
 	}
 	
+	public String getDomain() {
+		return this.domain;
+	}
+	
 	public Fetcher getFetcher() {
 		return this.fetcher;
 	}
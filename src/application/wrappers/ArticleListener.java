@@ -0,0 +1,87 @@
+package application.wrappers;
+
+import framework.articles.Article;
+
+import application.helpers.DataSource;
+
+/**
+ * Receives the articles found by
+ * {@link Wrapper#searchArticles(String[], java.util.Date, java.util.Date, java.util.List, ArticleListener)}
+ * as soon as they have been populated and filtered, together with the data
+ * source they were found in. Except for
+ * {@link #isKnown(DataSource, String)}, the Wrapper never calls the methods of
+ * a listener concurrently, so that implementations do not need to be
+ * thread-safe.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public interface ArticleListener {
+	/**
+	 * Called once for every article found.
+	 * 
+	 * @param source
+	 *            the data source the article was found in
+	 * @param article
+	 *            the populated article
+	 */
+	void articleFound(DataSource source, Article article);
+
+	/**
+	 * Called when an article already passed to
+	 * {@link #articleFound(DataSource, Article)} has been found by a further
+	 * keyword. Does nothing by default.
+	 * 
+	 * @param source
+	 *            the data source the article was found in
+	 * @param article
+	 *            the article, holding all keywords it has been found by so far
+	 */
+	default void articleUpdated(DataSource source, Article article) {
+	}
+
+	/**
+	 * Returns whether the article with the given {@code url} is already known
+	 * to the listener (e.g. from a previous run), in which case it is not
+	 * populated and passed to {@link #knownArticleFound(DataSource, Article)}
+	 * instead of {@link #articleFound(DataSource, Article)}. Is called
+	 * concurrently by the search threads of all data sources and must thus be
+	 * thread-safe. Returns {@code false} by default.
+	 * 
+	 * @param source
+	 *            the data source the article was found in
+	 * @param url
+	 *            the url of the article
+	 * @return whether the article is known
+	 */
+	default boolean isKnown(DataSource source, String url) {
+		return false;
+	}
+
+	/**
+	 * Called once for every article found that
+	 * {@link #isKnown(DataSource, String)} reported as known. Only the url, the
+	 * title and the keywords of the article are set. Does nothing by default.
+	 * 
+	 * @param source
+	 *            the data source the article was found in
+	 * @param article
+	 *            the unpopulated article
+	 */
+	default void knownArticleFound(DataSource source, Article article) {
+	}
+
+	/**
+	 * Called once the search of a data source has finished. No further
+	 * articles of the data source are passed to the listener afterwards. Does
+	 * nothing by default.
+	 * 
+	 * @param source
+	 *            the data source
+	 * @param failure
+	 *            the exception that aborted the search, or {@code null} if the
+	 *            search completed normally
+	 */
+	default void sourceFinished(DataSource source, Throwable failure) {
+	}
+}
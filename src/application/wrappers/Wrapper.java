@@ -1,13 +1,20 @@
 package application.wrappers;
 
 import framework.articles.Article;
+import framework.fetchers.ArticleSink;
+import framework.helpers.ConfigReader;
 import framework.helpers.LoggerGenerator;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 import application.helpers.DataSource;
@@ -19,20 +26,186 @@ public class Wrapper {
 
 	}
 
+	/**
+	 * Searches all desired data sources for articles and returns the articles
+	 * found, mapped to their data source. The data sources are searched
+	 * concurrently as described in
+	 * {@link #searchArticles(String[], Date, Date, List, ArticleListener)}.
+	 * If searching a data source fails, the failure is logged and the data
+	 * source is missing from the returned map.
+	 * 
+	 * @param keywords
+	 *            the keywords to be searched for
+	 * @param fromDate
+	 *            the earliest date an article may have been published on
+	 * @param toDate
+	 *            the latest date an article may have been published on
+	 * @param desiredSources
+	 *            the data sources to search
+	 * @return the articles found, mapped to their data source
+	 */
 	public static Map<DataSource, Map<String, Article>> searchArticles(String[] keywords, Date fromDate,
 			Date toDate, List<DataSource> desiredSources) {
-		log.info("Start collecting articles");
 		Map<DataSource, Map<String, Article>> result = new HashMap<DataSource, Map<String, Article>>();
 
+		searchArticles(keywords, fromDate, toDate, desiredSources, new ArticleListener() {
+			@Override
+			public void articleFound(DataSource source, Article article) {
+				result.computeIfAbsent(source, key -> new HashMap<String, Article>()).put(
+						article.getUrl(), article);
+			}
+
+			@Override
+			public void articleUpdated(DataSource source, Article article) {
+				// The fetcher may pass a new Article object holding the keywords
+				Article collected = result.get(source).get(article.getUrl());
+
+				if (collected != null && collected != article) {
+					for (String keyword : article.getKeywords()) {
+						collected.addKeyword(keyword);
+					}
+				}
+			}
+
+			@Override
+			public void sourceFinished(DataSource source, Throwable failure) {
+				if (failure != null) {
+					result.remove(source);
+				}
+				else {
+					result.putIfAbsent(source, new HashMap<String, Article>());
+				}
+			}
+		});
+
+		return result;
+	}
+
+	/**
+	 * Searches all desired data sources for articles and passes every article
+	 * to {@code listener} as soon as it has been populated and filtered, while
+	 * the search is still going on. The data sources are searched
+	 * concurrently, at most Wrapper.searchArticles.maxConcurrentSources (read
+	 * from config) at a time; {@code listener} is notified once each data
+	 * source has finished. Calls to {@code listener} are serialized, so that a
+	 * slow listener slows down the processing of articles of all data sources
+	 * instead of articles piling up in memory. Returns once all data sources
+	 * have finished.
+	 * 
+	 * @param keywords
+	 *            the keywords to be searched for
+	 * @param fromDate
+	 *            the earliest date an article may have been published on
+	 * @param toDate
+	 *            the latest date an article may have been published on
+	 * @param desiredSources
+	 *            the data sources to search
+	 * @param listener
+	 *            the listener to pass the articles found to
+	 */
+	public static void searchArticles(String[] keywords, Date fromDate, Date toDate,
+			List<DataSource> desiredSources, ArticleListener listener) {
+		log.info("Start collecting articles");
+
+		int maxConcurrentSources = Integer.parseInt(ConfigReader.getConfig().getProperty(
+				"Wrapper.searchArticles.maxConcurrentSources", "4"));
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1,
+				Math.min(maxConcurrentSources, desiredSources.size())));
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+
+		// Lock serializing the calls to listener
+		Object lock = new Object();
+
 		for (DataSource source : DataSource.values()) {
 			if (desiredSources.contains(source)) {
-				result.put(source, source.getFetcher().searchArticles(keywords, fromDate, toDate));
+				futures.add(executor.submit(() -> searchSource(source, keywords, fromDate, toDate,
+						listener, lock)));
 			}
 		}
-		
+
+		// Wait for all data sources to finish
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			}
+			catch (ExecutionException e) {
+				// Failures are handled by searchSource()
+				log.severe("Exception thrown when collecting articles: "
+						+ e.getCause().toString());
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				log.severe("Interrupted while collecting articles");
+				break;
+			}
+		}
+
+		executor.shutdownNow();
 		log.info("Finished collecting articles");
-		
-		return result;
+	}
+
+	/**
+	 * Searches a single data source, passing the articles found to
+	 * {@code listener} and notifying it when done.
+	 * 
+	 * @param source
+	 *            the data source to search
+	 * @param keywords
+	 *            the keywords to be searched for
+	 * @param fromDate
+	 *            the earliest date an article may have been published on
+	 * @param toDate
+	 *            the latest date an article may have been published on
+	 * @param listener
+	 *            the listener to pass the articles found to
+	 * @param lock
+	 *            the lock to hold while calling {@code listener}
+	 */
+	protected static void searchSource(DataSource source, String[] keywords, Date fromDate,
+			Date toDate, ArticleListener listener, Object lock) {
+		Throwable failure = null;
+
+		try {
+			source.getFetcher().searchArticles(keywords, fromDate, toDate, new ArticleSink() {
+				@Override
+				public void accept(Article article) {
+					synchronized (lock) {
+						listener.articleFound(source, article);
+					}
+				}
+
+				@Override
+				public void update(Article article) {
+					synchronized (lock) {
+						listener.articleUpdated(source, article);
+					}
+				}
+
+				@Override
+				public boolean isKnown(String url) {
+					return listener.isKnown(source, url);
+				}
+
+				@Override
+				public void acceptKnown(Article article) {
+					synchronized (lock) {
+						listener.knownArticleFound(source, article);
+					}
+				}
+			});
+
+			log.info("Finished collecting articles from " + source.getName());
+		}
+		catch (RuntimeException e) {
+			// Exception thrown by fetcher.searchArticles()
+			log.severe("Exception thrown when collecting articles from " + source.getName()
+					+ ": " + e.toString());
+			failure = e;
+		}
+
+		synchronized (lock) {
+			listener.sourceFinished(source, failure);
+		}
 	}
 
 	public static Map<DataSource, Map<String, Article>> searchArticles(String[] keywords, Date fromDate,
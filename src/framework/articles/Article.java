@@ -214,8 +214,9 @@ public abstract class Article {
 	 * 
 	 * @param keyword
 	 *            the keyword to add
+	 * @return whether the keyword was not contained in the set before
 	 */
-	public synchronized void addKeyword(String keyword) {
-		this.keywords.add(keyword);
+	public synchronized boolean addKeyword(String keyword) {
+		return this.keywords.add(keyword);
 	}
 }
@@ -1,17 +1,49 @@
 package framework.articles;
 
 import framework.helpers.ConfigReader;
+import framework.helpers.ConnectionHelper;
+import framework.helpers.DateHelper;
+import framework.html.MultiSelector;
+import framework.html.SelectorCache;
+import framework.html.StreamingExtractor;
+import framework.http.HttpResponse;
 
 import java.io.IOException;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
+import org.jsoup.select.Elements;
+import org.jsoup.select.Evaluator;
 
 public abstract class ScrapedArticle extends Article {
+	/**
+	 * The StreamingExtractors compiled from the streaming selectors of each
+	 * subclass, empty if the selectors of a subclass cannot be evaluated while
+	 * streaming
+	 */
+	private final static ConcurrentMap<Class<?>, Optional<StreamingExtractor>> streamingExtractors = new ConcurrentHashMap<Class<?>, Optional<StreamingExtractor>>();
+
+	/**
+	 * The names of the {@code getXYZFromDocument(Document)} methods overridden
+	 * by each subclass, determined once per class via reflection
+	 */
+	private final static ConcurrentMap<Class<?>, List<String>> overriddenExtractors = new ConcurrentHashMap<Class<?>, List<String>>();
+
+	/**
+	 * Whether article pages are scanned by a {@link StreamingExtractor} before
+	 * being parsed entirely, read from config
+	 */
+	private final static boolean streaming = Boolean.parseBoolean(ConfigReader.getConfig()
+			.getProperty("ScrapedArticle.populateData.streaming", "true"));
+
 	/**
 	 * The User Agent header to use when performing any HTTP requests. The
 	 * header is read from config.
@@ -64,6 +96,22 @@ public abstract class ScrapedArticle extends Article {
 	 * any String value obtained from these methods is empty (string.length() ==
 	 * 0), {@code null} is set instead of the empty string.
 	 * 
+	 * The article content is fetched without holding the lock of this
+	 * article, so that threads blocked on network I/O (in particular virtual
+	 * threads, see {@link framework.fetchers.Fetcher#populateArticleData(java.util.Map)})
+	 * are not pinned; the fields are populated while holding the lock.
+	 * 
+	 * Unless disabled in config, the fetched page is first scanned by a
+	 * {@link StreamingExtractor} which keeps only the parts of the page
+	 * matching the selectors returned by {@link #getStreamingSelectors()}, so
+	 * that the fields can usually be populated without building a DOM of the
+	 * entire page. The entire page is only parsed (without fetching it again)
+	 * if a field is still empty and the extraction is incomplete, i.e. a
+	 * selector matched while streaming but not on the extracted document (see
+	 * {@link #isExtractionIncomplete(StreamingExtractor.Extraction)}). Fields
+	 * the page simply does not contain do not cause the page to be parsed
+	 * again.
+	 * 
 	 * Can be overridden in subclasses if different behavior is necessary.
 	 * Should only be overridden if for some reason it is not necessary to fetch
 	 * the article content from the respective server. In all other cases, the
@@ -74,48 +122,34 @@ public abstract class ScrapedArticle extends Article {
 	 *             server
 	 */
 	@Override
-	public synchronized void populateData() throws IOException {
+	public void populateData() throws IOException {
 		this.log.finest(Thread.currentThread() + " starts populating article data for " + this.url);
 
 		// Perform hook method
 		this.beforePopulatingDataHook();
 
 		// Only perform network call if really necessary
-		if (this.subtitle == null || this.fullText == null || this.fullTextHTML == null
-				|| this.publicationDate == null) {
+		if (this.isIncomplete()) {
 			try {
-				Document doc = Jsoup.connect(this.url).timeout(60000).userAgent(this.userAgent)
-						.get();
-				String value;
-
-				// Populate fields
-				if (this.subtitle == null) {
-					value = this.getSubtitleFromDocument(doc);
-					this.subtitle = (value.length() == 0 ? null : value);
-				}
-
-				if (this.fullText == null) {
-					value = this.getFullTextFromDocument(doc);
-					this.fullText = (value.length() == 0 ? null : value);
-				}
+				HttpResponse response = ConnectionHelper.getPage(this.url, this.userAgent, true);
+				StreamingExtractor extractor = this.getStreamingExtractor();
 
-				if (this.fullTextHTML == null) {
-					value = this.getFullTextHTMLFromDocument(doc);
-					this.fullTextHTML = (value.length() == 0 ? null : value);
+				if (extractor == null) {
+					this.populateFromDocument(ConnectionHelper.parseDocument(response));
 				}
-
-				if (this.publicationDate == null) {
-					try {
-						this.publicationDate = this.getPublicationDateFromDocument(doc);
-					}
-					catch (ParseException e) {
-						// In case of parsing failure: publicationDate stays
-						// null,
-						// log warning
-						this.log.warning("Unable to parse publication date for article with url "
-								+ this.url);
+				else {
+					StreamingExtractor.Extraction extraction = extractor.extract(
+							response.getBody(), response.getCharset(), response.getUrl()
+									.toExternalForm());
+					this.populateFromDocument(extraction.getDocument());
+
+					// Fall back to the entire page if anything is missing due
+					// to the extraction
+					if (this.isIncomplete() && this.isExtractionIncomplete(extraction)) {
+						this.log.fine("Streaming extraction incomplete for " + this.url
+								+ ", parsing entire page");
+						this.populateFromDocument(ConnectionHelper.parseDocument(response));
 					}
-
 				}
 			}
 			catch (IOException e) {
@@ -133,6 +167,184 @@ public abstract class ScrapedArticle extends Article {
 				+ this.url);
 	}
 
+	/**
+	 * Returns the StreamingExtractor for the selectors of this article's
+	 * class, compiling it on first use.
+	 * 
+	 * @return the extractor, or {@code null} if streaming is disabled or not
+	 *         supported by the selectors
+	 */
+	protected StreamingExtractor getStreamingExtractor() {
+		if (!streaming) {
+			return null;
+		}
+
+		return streamingExtractors.computeIfAbsent(this.getClass(), c -> {
+			List<String> selectors = this.getStreamingSelectors();
+
+			try {
+				return Optional.ofNullable(selectors == null ? null : StreamingExtractor
+						.compile(selectors));
+			}
+			catch (IllegalArgumentException e) {
+				this.log.config("Streaming disabled for " + c.getSimpleName() + ": "
+						+ e.getLocalizedMessage());
+				return Optional.empty();
+			}
+		}).orElse(null);
+	}
+
+	/**
+	 * Returns the selectors of all elements the {@code getXYZFromDocument()}
+	 * methods of this article access. The StreamingExtractor keeps these
+	 * elements (and their ancestors) when scanning the page. By default, the
+	 * subtitle, publication date and full text selectors are returned;
+	 * subclasses whose {@code getXYZFromDocument()} methods use further
+	 * selectors must add them, or return {@code null} to disable streaming.
+	 * 
+	 * @return the selectors, or {@code null}
+	 */
+	protected List<String> getStreamingSelectors() {
+		return Arrays.asList(this.getSubtitleSelector(), this.getPublicationDateSelector(),
+				this.getFullTextSelector());
+	}
+
+	/**
+	 * Returns whether the document extracted by the StreamingExtractor lacks
+	 * elements of the page, i.e. whether any of the streaming selectors
+	 * matched an element while streaming, but matches no element of the
+	 * extracted document.
+	 * 
+	 * @param extraction
+	 *            the result of the StreamingExtractor
+	 * @return whether the extraction is incomplete
+	 */
+	protected boolean isExtractionIncomplete(StreamingExtractor.Extraction extraction) {
+		for (String selector : this.getStreamingSelectors()) {
+			if (extraction.isMatched(selector)
+					&& SelectorCache.select(selector, extraction.getDocument()).isEmpty()) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return whether any of the fields populated by {@link #populateData()}
+	 *         is still {@code null}
+	 */
+	protected synchronized boolean isIncomplete() {
+		return this.subtitle == null || this.fullText == null || this.fullTextHTML == null
+				|| this.publicationDate == null;
+	}
+
+	/**
+	 * Populates all empty fields of this article from the fetched article
+	 * content {@code doc}.
+	 * 
+	 * The selectors of all fields whose {@code getXYZFromDocument(Document)}
+	 * method is not overridden by the subclass are evaluated together in a
+	 * single traversal of {@code doc}, and fullText and fullTextHTML are
+	 * produced from the same matched elements. Fields whose
+	 * {@code getXYZFromDocument(Document)} method is overridden are populated
+	 * by calling that method.
+	 * 
+	 * @param doc
+	 *            the fetched article content
+	 */
+	protected synchronized void populateFromDocument(Document doc) {
+		List<String> overridden = this.getOverriddenExtractors();
+		boolean subtitleDefault = (this.subtitle == null && !overridden
+				.contains("getSubtitleFromDocument"));
+		boolean fullTextDefault = (this.fullText == null && !overridden
+				.contains("getFullTextFromDocument"));
+		boolean fullTextHTMLDefault = (this.fullTextHTML == null && !overridden
+				.contains("getFullTextHTMLFromDocument"));
+		boolean publicationDateDefault = (this.publicationDate == null && !overridden
+				.contains("getPublicationDateFromDocument"));
+
+		// Evaluate the selectors of all default extractions at once
+		List<Elements> matches = MultiSelector.select(doc, Arrays.asList(
+				this.compileIf(subtitleDefault, this.getSubtitleSelector()),
+				this.compileIf(fullTextDefault || fullTextHTMLDefault, this.getFullTextSelector()),
+				this.compileIf(publicationDateDefault, this.getPublicationDateSelector())));
+		String value;
+
+		// Populate fields
+		if (this.subtitle == null) {
+			value = (subtitleDefault ? matches.get(0).text() : this.getSubtitleFromDocument(doc));
+			this.subtitle = (value.length() == 0 ? null : value);
+		}
+
+		if (this.fullText == null) {
+			value = (fullTextDefault ? matches.get(1).text() : this.getFullTextFromDocument(doc));
+			this.fullText = (value.length() == 0 ? null : value);
+		}
+
+		if (this.fullTextHTML == null) {
+			value = (fullTextHTMLDefault ? matches.get(1).outerHtml() : this
+					.getFullTextHTMLFromDocument(doc));
+			this.fullTextHTML = (value.length() == 0 ? null : value);
+		}
+
+		if (this.publicationDate == null) {
+			try {
+				this.publicationDate = (publicationDateDefault ? this.parsePublicationDate(matches
+						.get(2).text()) : this.getPublicationDateFromDocument(doc));
+			}
+			catch (ParseException e) {
+				// In case of parsing failure: publicationDate stays null,
+				// log warning
+				this.log.warning("Unable to parse publication date for article with url "
+						+ this.url);
+			}
+		}
+	}
+
+	/**
+	 * Returns the compiled form of {@code query} if {@code condition} holds.
+	 * 
+	 * @param condition
+	 *            whether the selector is needed
+	 * @param query
+	 *            the selector
+	 * @return the compiled selector, or {@code null} if {@code condition} does
+	 *         not hold
+	 */
+	protected Evaluator compileIf(boolean condition, String query) {
+		return (condition ? SelectorCache.get(query) : null);
+	}
+
+	/**
+	 * Returns the names of the {@code getXYZFromDocument(Document)} methods
+	 * overridden by the class of this article (or any of its superclasses
+	 * below ScrapedArticle).
+	 * 
+	 * @return the names of the overridden methods
+	 */
+	protected List<String> getOverriddenExtractors() {
+		return overriddenExtractors.computeIfAbsent(this.getClass(), c -> {
+			List<String> names = new ArrayList<String>();
+
+			for (String name : Arrays.asList("getSubtitleFromDocument", "getFullTextFromDocument",
+					"getFullTextHTMLFromDocument", "getPublicationDateFromDocument")) {
+				for (Class<?> cls = c; cls != ScrapedArticle.class; cls = cls.getSuperclass()) {
+					try {
+						cls.getDeclaredMethod(name, Document.class);
+						names.add(name);
+						break;
+					}
+					catch (NoSuchMethodException e) {
+						// Not declared here, check superclass
+					}
+				}
+			}
+
+			return names;
+		});
+	}
+
 	/**
 	 * Template method returning the subtitle of this article by applying the
 	 * selector provided by {@link #getSubtitleSelector()} on {@code doc} and
@@ -146,7 +358,7 @@ public abstract class ScrapedArticle extends Article {
 	 * @return the subtitle of this article
 	 */
 	protected String getSubtitleFromDocument(Document doc) {
-		return doc.select(this.getSubtitleSelector()).text();
+		return SelectorCache.select(this.getSubtitleSelector(), doc).text();
 	}
 
 	/**
@@ -162,7 +374,7 @@ public abstract class ScrapedArticle extends Article {
 	 * @return the complete text of this article
 	 */
 	protected String getFullTextFromDocument(Document doc) {
-		return doc.select(this.getFullTextSelector()).text();
+		return SelectorCache.select(this.getFullTextSelector(), doc).text();
 	}
 
 	/**
@@ -178,16 +390,14 @@ public abstract class ScrapedArticle extends Article {
 	 * @return the complete HTML of this article
 	 */
 	protected String getFullTextHTMLFromDocument(Document doc) {
-		return doc.select(this.getFullTextSelector()).outerHtml();
+		return SelectorCache.select(this.getFullTextSelector(), doc).outerHtml();
 	}
 
 	/**
 	 * Template method returning the date of publication of this article by
 	 * applying the selector provided by {@link #getPublicationDateSelector()}
 	 * on {@code doc} and extracting all text in the matched element(s). This
-	 * text is then parsed by a {@link java.text.SimpleDateFormat} initialized
-	 * with the format string provided by {@link #getPublicationDateFormat()}
-	 * and the locale provided by {@link #getLocale()}.
+	 * text is then parsed by {@link #parsePublicationDate(String)}.
 	 * 
 	 * Can be overridden in subclasses if different behavior is necessary.
 	 * 
@@ -198,24 +408,36 @@ public abstract class ScrapedArticle extends Article {
 	 *         object
 	 * 
 	 * @throws ParseException
-	 *             if the text selected as described above cannot be parsed by
-	 *             the SimpleDateFormat generated as described above
+	 *             if the text selected as described above cannot be parsed
 	 */
 	protected Date getPublicationDateFromDocument(Document doc) throws ParseException {
-		SimpleDateFormat dateFormatter = new SimpleDateFormat(this.getPublicationDateFormat(),
-				this.getLocale());
+		return this.parsePublicationDate(SelectorCache.select(
+				this.getPublicationDateSelector(), doc).text());
+	}
 
-		String dateString = doc.select(this.getPublicationDateSelector()).text();
-		return dateFormatter.parse(dateString);
+	/**
+	 * Parses {@code dateString} via {@link framework.helpers.DateHelper}, using
+	 * the format string provided by {@link #getPublicationDateFormat()} and the
+	 * locale provided by {@link #getLocale()}.
+	 * 
+	 * @param dateString
+	 *            the text of the element(s) containing the publication date
+	 * @return the publication date
+	 * @throws ParseException
+	 *             if {@code dateString} cannot be parsed
+	 */
+	protected Date parsePublicationDate(String dateString) throws ParseException {
+		return DateHelper.toDate(DateHelper.parse(dateString, this.getPublicationDateFormat(),
+				this.getLocale()));
 	}
 
 	/**
 	 * This method is called by {@link #populateData()} before fetching the
 	 * article content and populating the article data. By default, it does not
-	 * perform any actions, but subclasses can override this method. This might
-	 * for example be used to artificially slow down the concurrent execution of
-	 * that method to keep requests from being denied due to an excess of
-	 * requests per second.
+	 * perform any actions, but subclasses can override this method. Note that
+	 * the rate of requests sent to a data source should not be limited here,
+	 * but via the rate limits of {@link framework.http.HttpClient}, which are
+	 * enforced without blocking threads longer than necessary.
 	 */
 	protected void beforePopulatingDataHook() {
 
@@ -1,16 +1,22 @@
 package framework.fetchers;
 
 import framework.articles.*;
+import framework.helpers.ConfigReader;
 import framework.helpers.ConnectionHelper;
+import framework.http.HttpResponse;
 import framework.results.ApiResult;
+import framework.results.ApiResultReader;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectReader;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  * Base class for all fetcher classes that obtain their framework.results by the usage of
@@ -49,7 +55,9 @@ public abstract class ApiFetcher extends Fetcher {
 	 * method. As many APIs impose a limit on the number of articles returned
 	 * per call, pagination is supported via the {@code limit} parameter, which
 	 * represents the number of articles per page and is passed into the
-	 * {@link #getSearchURL(String, Date, Date, int, int)} method.
+	 * {@link #getSearchURL(String, Date, Date, int, int)} method. The keywords
+	 * are searched concurrently (see
+	 * {@link #searchKeywords(String[], java.util.function.Consumer)}).
 	 * 
 	 * @param keywords
 	 *            the keywords to be searched for
@@ -72,76 +80,295 @@ public abstract class ApiFetcher extends Fetcher {
 	 */
 	protected Map<String, Article> searchArticles(String[] keywords, Date fromDate, Date toDate,
 			Class<? extends ApiResult> resultClass, String rootElement, int limit) {
+		CollectingArticleSink sink = new CollectingArticleSink();
+		this.searchArticles(keywords, fromDate, toDate, resultClass, rootElement, limit, sink);
+		return sink.getArticles();
+	}
+
+	/**
+	 * Template method searching for articles like
+	 * {@link #searchArticles(String[], Date, Date, Class, String, int)},
+	 * handing every article to {@code sink}. The articles found are filtered
+	 * and populated by an {@link ArticlePipeline} while the search is still
+	 * going on.
+	 * 
+	 * @param keywords
+	 *            the keywords to be searched for
+	 * @param fromDate
+	 *            the earliest date an article may have been published on to be
+	 *            returned
+	 * @param toDate
+	 *            the latest date an article may have been published on to be
+	 *            returned
+	 * @param resultClass
+	 *            the class representing the result of a call to the respective
+	 *            API
+	 * @param rootElement
+	 *            the name of the JSON property the result is wrapped into (e.g.
+	 *            "response") or {@code null} if the result is not wrapped
+	 * @param limit
+	 *            the number of articles returned per API call
+	 * @param sink
+	 *            the sink to hand the articles found to
+	 */
+	protected void searchArticles(String[] keywords, Date fromDate, Date toDate,
+			Class<? extends ApiResult> resultClass, String rootElement, int limit,
+			ArticleSink sink) {
 		this.log.info("Start fetching base url " + this.baseURL);
 
-		// Article set to be returned
-		Map<String, Article> articles = new HashMap<String, Article>();
+		// Pipeline filtering and populating the articles, fed concurrently by
+		// the keyword searches
+		ArticlePipeline articles = new ArticlePipeline(this, fromDate, toDate, sink);
+
+		try {
+			// Search keywords concurrently, get API result for each keyword and
+			// add articles to pipeline
+			this.searchKeywords(keywords, keyword -> this.searchKeyword(keyword, fromDate, toDate,
+					resultClass, rootElement, limit, articles));
+
+			this.log.info("Finished fetching base url " + this.baseURL);
+		}
+		finally {
+			// Wait for the remaining articles to be processed, even if the
+			// search failed
+			articles.finish();
+		}
+	}
+
+	/**
+	 * Helper method used by
+	 * {@link #searchArticles(String[], Date, Date, Class, String, int)} to
+	 * iterate over the pagination of the API results for a single
+	 * {@code keyword}, adding all articles found to {@code articles}. Is called
+	 * concurrently for different keywords.
+	 * 
+	 * If the property ApiFetcher.searchArticles.parallelPaging read from config
+	 * is {@code true}, only the first page is fetched on its own. As the total
+	 * number of results is known from that page, all remaining pages are then
+	 * fetched concurrently (see
+	 * {@link #searchKeywordInParallel(String, Date, Date, Class, String, int, ArticlePipeline)}).
+	 * Otherwise, the pages are fetched one after another.
+	 * 
+	 * @param keyword
+	 *            the keyword to search for
+	 * @param fromDate
+	 *            the earliest date an article may have been published on to be
+	 *            returned
+	 * @param toDate
+	 *            the latest date an article may have been published on to be
+	 *            returned
+	 * @param resultClass
+	 *            the class representing the result of a call to the respective
+	 *            API
+	 * @param rootElement
+	 *            the name of the JSON property the result is wrapped into (e.g.
+	 *            "response") or {@code null} if the result is not wrapped
+	 * @param limit
+	 *            the number of articles returned per API call
+	 * @param articles
+	 *            the pipeline to add the articles found to
+	 */
+	protected void searchKeyword(String keyword, Date fromDate, Date toDate,
+			Class<? extends ApiResult> resultClass, String rootElement, int limit,
+			ArticlePipeline articles) {
+		this.log.info("Start fetching for keyword " + keyword);
+
+		if (Boolean.parseBoolean(ConfigReader.getConfig().getProperty(
+				"ApiFetcher.searchArticles.parallelPaging", "true"))) {
+			this.searchKeywordInParallel(keyword, fromDate, toDate, resultClass, rootElement, limit,
+					articles);
+			return;
+		}
+
+		// Initialize offset (for pagination) and ApiResult object
+		int offset = 0;
+		ApiResult result = null;
+
+		do {
+			// Iterate over pagination until reaching last page
+			try {
+				// Do not raise offset in first loop invocation
+				if (result != null) {
+					offset += limit;
+				}
+
+				result = this.fetchResult(keyword, fromDate, toDate, offset, limit, resultClass,
+						rootElement, this.getArticleAdder(keyword, articles));
+			}
+			catch (IOException e) {
+				// Low-level I/O exception (timeout etc.), already retried by
+				// the HttpClient - skip page
+				this.log.severe("IOException when processing url "
+						+ this.getSearchURL(keyword, fromDate, toDate, offset, limit) + ": "
+						+ e.getMessage());
+
+				// Without the first page, the number of pages is unknown
+				if (result == null) {
+					this.log.severe("Stopped fetching for keyword " + keyword);
+					return;
+				}
+			}
+		} while (offset + limit < result.getNumArticles());
+	}
+
+	/**
+	 * Helper method used by
+	 * {@link #searchKeyword(String, Date, Date, Class, String, int, ArticlePipeline)}
+	 * to fetch the first page of API results for {@code keyword} and then
+	 * fetch all remaining pages concurrently, using up to
+	 * ApiFetcher.searchArticles.pageThreads (read from config) threads per
+	 * keyword. The number of concurrent connections and the request rate per
+	 * host are additionally limited by the HttpClient.
+	 * 
+	 * @param keyword
+	 *            the keyword to search for
+	 * @param fromDate
+	 *            the earliest date an article may have been published on to be
+	 *            returned
+	 * @param toDate
+	 *            the latest date an article may have been published on to be
+	 *            returned
+	 * @param resultClass
+	 *            the class representing the result of a call to the respective
+	 *            API
+	 * @param rootElement
+	 *            the name of the JSON property the result is wrapped into (e.g.
+	 *            "response") or {@code null} if the result is not wrapped
+	 * @param limit
+	 *            the number of articles returned per API call
+	 * @param articles
+	 *            the pipeline to add the articles found to
+	 */
+	protected void searchKeywordInParallel(String keyword, Date fromDate, Date toDate,
+			Class<? extends ApiResult> resultClass, String rootElement, int limit,
+			ArticlePipeline articles) {
+		ApiResult firstResult;
+
+		try {
+			firstResult = this.fetchResult(keyword, fromDate, toDate, 0, limit, resultClass,
+					rootElement, this.getArticleAdder(keyword, articles));
+		}
+		catch (IOException e) {
+			this.log.severe("IOException when processing url "
+					+ this.getSearchURL(keyword, fromDate, toDate, 0, limit) + ": "
+					+ e.getMessage() + ", stopped fetching for keyword " + keyword);
+			return;
+		}
+
+		if (firstResult.getNumArticles() <= limit) {
+			return;
+		}
 
-		// Iterate over keywords, get API result for each keyword and add
-		// articles to set
-		for (String keyword : keywords) {
-			this.log.info("Start fetching for keyword " + keyword);
+		// Total number of results is known: request all remaining pages at
+		// once, articles are added by the page threads as they are parsed
+		int numThreads = Integer.parseInt(ConfigReader.getConfig().getProperty(
+				"ApiFetcher.searchArticles.pageThreads", "8"));
+		ExecutorService pageFetcher = Executors.newFixedThreadPool(Math.max(1, numThreads));
+		Map<Integer, Future<ApiResult>> pages = new LinkedHashMap<Integer, Future<ApiResult>>();
 
-			// Initialize offset (for pagination) and ApiResult object
-			int offset = 0;
-			ApiResult result = null;
+		for (int offset = limit; offset < firstResult.getNumArticles(); offset += limit) {
+			final int pageOffset = offset;
+			pages.put(offset, pageFetcher.submit(() -> this.fetchResult(keyword, fromDate, toDate,
+					pageOffset, limit, resultClass, rootElement, this.getArticleAdder(keyword,
+							articles))));
+		}
 
-			do {
-				// Iterate over pagination until reaching last page
+		try {
+			for (Map.Entry<Integer, Future<ApiResult>> page : pages.entrySet()) {
 				try {
-					// Do not raise offset in first loop invocation
-					if (result != null) {
-						offset += limit;
-					}
-
-					// Get output of API call
-					String output = ConnectionHelper.getURLContent(this.getSearchURL(keyword,
-							fromDate, toDate, offset, limit));
-
-					// Convert API output to ZeitResult object
-					ObjectMapper mapper = new ObjectMapper();
-
-					// If rootElement is set, adjust mapping process to reflect
-					// root element in JSON response
-					if (rootElement == null) {
-						result = mapper.readValue(output, resultClass);
-					}
-					else {
-						ObjectReader reader = mapper.reader(resultClass).withRootName(rootElement);
-						result = reader.readValue(output);
-					}
-
-					// Iterate over articles and add them to map
-					for (Article article : result.getArticles()) {
-						if (!articles.containsKey(article.getUrl())) {
-							// Article has not been found yet: add keyword to
-							// article, add article to map
-							article.addKeyword(keyword);
-							articles.put(article.getUrl(), article);
-						}
-						else {
-							// Article was already found before, add keyword to
-							// Article object in map
-							articles.get(article.getUrl()).addKeyword(keyword);
-						}
-					}
+					page.getValue().get();
 				}
-				catch (IOException e) {
-					// Low-level I/O exception (timeout etc.) - no sensible way
-					// to handle here
-					this.log.severe("IOException when processing url "
-							+ this.getSearchURL(keyword, fromDate, toDate, offset, limit) + ": "
-							+ e.getMessage());
+				catch (ExecutionException e) {
+					this.log.severe("Exception thrown when processing url "
+							+ this.getSearchURL(keyword, fromDate, toDate, page.getKey(), limit)
+							+ ": " + e.getCause().toString());
 				}
-			} while (offset + limit < result.getNumArticles());
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			this.log.severe("Interrupted while fetching for keyword " + keyword);
+		}
+		finally {
+			pageFetcher.shutdownNow();
+		}
+	}
+
+	/**
+	 * Fetches a single page of API results, parses the JSON output into an
+	 * instance of {@code resultClass} and hands all articles contained to
+	 * {@code consumer}. The JSON output is parsed straight from the response
+	 * bytes by the {@link framework.results.ApiResultReader} cached for
+	 * {@code resultClass} and {@code rootElement}.
+	 * 
+	 * If the property ApiFetcher.searchArticles.streaming read from config is
+	 * {@code true}, every article is handed to {@code consumer} as soon as it
+	 * has been parsed and the result returned does not contain any articles.
+	 * Otherwise, the entire result is parsed first.
+	 * 
+	 * @param keyword
+	 *            the keyword to search for
+	 * @param fromDate
+	 *            the earliest date an article may have been published on to be
+	 *            returned
+	 * @param toDate
+	 *            the latest date an article may have been published on to be
+	 *            returned
+	 * @param offset
+	 *            the number of the first article to be returned
+	 * @param limit
+	 *            the number of articles returned per API call
+	 * @param resultClass
+	 *            the class representing the result of a call to the respective
+	 *            API
+	 * @param rootElement
+	 *            the name of the JSON property the result is wrapped into (e.g.
+	 *            "response") or {@code null} if the result is not wrapped
+	 * @param consumer
+	 *            the consumer to hand the articles found to
+	 * @return the parsed API result
+	 * @throws IOException
+	 *             in case of any networking or parsing error
+	 */
+	protected ApiResult fetchResult(String keyword, Date fromDate, Date toDate, int offset,
+			int limit, Class<? extends ApiResult> resultClass, String rootElement,
+			Consumer<Article> consumer) throws IOException {
+		// Get output of API call
+		HttpResponse response = ConnectionHelper.getPage(this.getSearchURL(keyword, fromDate,
+				toDate, offset, limit), null, false);
+		ApiResultReader reader = ApiResultReader.forResult(resultClass, rootElement);
+
+		if (Boolean.parseBoolean(ConfigReader.getConfig().getProperty(
+				"ApiFetcher.searchArticles.streaming", "true"))) {
+			return reader.stream(new ByteArrayInputStream(response.getBody()), consumer);
+		}
+
+		ApiResult result = reader.read(new ByteArrayInputStream(response.getBody()));
+
+		if (result.getArticles() != null) {
+			result.getArticles().forEach(consumer);
 		}
 
-		this.log.info("Finished fetching base url " + this.baseURL);
-		
-		// Process articles by filtering and populating, then return
-		return this.processArticles(articles, fromDate, toDate);
+		return result;
 	}
-	
+
+	/**
+	 * Returns a consumer adding articles to {@code articles} (or adding
+	 * {@code keyword} to the Article object already found).
+	 * 
+	 * @param keyword
+	 *            the keyword the articles were found by
+	 * @param articles
+	 *            the pipeline to add the articles to
+	 * @return the consumer
+	 */
+	protected Consumer<Article> getArticleAdder(String keyword, ArticlePipeline articles) {
+		return article -> articles.addArticle(article.getUrl(), keyword, () -> {
+			article.addKeyword(keyword);
+			return article;
+		});
+	}
+
 	/**
 	 * Helper method used by {@link #searchArticles(String[], Date, Date)} to
 	 * search for articles matching the given conditions. More specifically, it
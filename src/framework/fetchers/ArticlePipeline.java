@@ -0,0 +1,622 @@
+package framework.fetchers;
+
+import framework.articles.Article;
+import framework.filters.PostPopulatingArticleFilter;
+import framework.filters.PrePopulatingArticleFilter;
+import framework.helpers.ConfigReader;
+import framework.helpers.ExecutorHelper;
+
+import java.util.AbstractMap;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Processes the articles found by a {@link Fetcher} while it is still
+ * searching. Articles are added by the search threads using
+ * {@link #addArticle(String, String, Supplier)} and pass the following stages:
+ * 
+ * <ol>
+ * <li>the PrePopulatingArticleFilter of the fetcher, applied on the search
+ * thread,</li>
+ * <li>{@link framework.articles.Article#populateData()}, performed by the
+ * executor configured by Fetcher.populateArticleData.executor (see
+ * {@link Fetcher#populateArticleData(Map)}),</li>
+ * <li>the PostPopulatingArticleFilter of the fetcher, applied on the thread
+ * that populated the article,</li>
+ * <li>the {@link ArticleSink}, which is fed by a single thread.</li>
+ * </ol>
+ * 
+ * Articles the sink reports as known (see {@link ArticleSink#isKnown(String)})
+ * skip the population and the PostPopulatingArticleFilter and are handed to
+ * {@link ArticleSink#acceptKnown(Article)} right away.
+ * 
+ * The stages are connected by queues holding at most
+ * Fetcher.processArticles.queueCapacity (read from config) articles each. If
+ * the population of articles cannot keep up with the search, the search
+ * threads block when adding further articles, and if the sink cannot keep up
+ * with the population, no further articles are populated, so that the number
+ * of articles held by the pipeline is bounded. Once an article has been
+ * handed to the sink or rejected by a filter, the pipeline only keeps its url
+ * (to recognize it when found again) and, if handed to the sink, its keywords.
+ * 
+ * If the property Fetcher.processArticles.pipeline read from config is
+ * {@code false}, the articles are collected in a map instead, processed by
+ * {@link Fetcher#processArticles(Map, Date, Date)} once the search has
+ * finished and then handed to the sink.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class ArticlePipeline {
+	/**
+	 * Marks the end of the articles in a queue
+	 */
+	private final static Item END = new Item(null, null, Item.Kind.UPDATE);
+
+	/**
+	 * The fetcher the articles are found by
+	 */
+	protected final Fetcher fetcher;
+
+	/**
+	 * The earliest date an article may have been published on
+	 */
+	protected final Date fromDate;
+
+	/**
+	 * The latest date an article may have been published on
+	 */
+	protected final Date toDate;
+
+	/**
+	 * The sink the processed articles are handed to
+	 */
+	protected final ArticleSink sink;
+
+	/**
+	 * Whether the articles are processed while searching (true) or after the
+	 * search has finished (false)
+	 */
+	protected final boolean staged;
+
+	/**
+	 * Logging utility
+	 */
+	protected final Logger log;
+
+	/**
+	 * All articles found so far (including those rejected by the filters),
+	 * mapped to their url
+	 */
+	protected final ConcurrentMap<String, Found> found = new ConcurrentHashMap<String, Found>();
+
+	/**
+	 * All articles found so far if the pipeline is disabled, mapped to their
+	 * url
+	 */
+	protected final ConcurrentMap<String, Article> articles = new ConcurrentHashMap<String, Article>();
+
+	/**
+	 * The filter applied before populating the articles, or {@code null}
+	 */
+	protected PrePopulatingArticleFilter prePopulatingFilter;
+
+	/**
+	 * The filter applied after populating the articles, or {@code null}
+	 */
+	protected PostPopulatingArticleFilter postPopulatingFilter;
+
+	/**
+	 * Articles waiting to be populated
+	 */
+	protected BlockingQueue<Item> populateQueue;
+
+	/**
+	 * Articles (and keyword updates) waiting to be handed to the sink
+	 */
+	protected BlockingQueue<Item> sinkQueue;
+
+	/**
+	 * The executor populating the articles
+	 */
+	protected ExecutorService populator;
+
+	/**
+	 * Limits the number of articles populated at once
+	 */
+	protected Semaphore inFlight;
+
+	/**
+	 * The number of permits of {@link #inFlight}
+	 */
+	protected int maxInFlight;
+
+	/**
+	 * Thread taking articles from {@link #populateQueue} and submitting them
+	 * to {@link #populator}
+	 */
+	protected Thread dispatcher;
+
+	/**
+	 * Thread taking articles from {@link #sinkQueue} and handing them to
+	 * {@link #sink}
+	 */
+	protected Thread sinkFeeder;
+
+	/**
+	 * Number of articles rejected by the PrePopulatingArticleFilter
+	 */
+	protected final AtomicInteger preFiltered = new AtomicInteger();
+
+	/**
+	 * Number of articles known to the sink, which are not populated
+	 */
+	protected final AtomicInteger known = new AtomicInteger();
+
+	/**
+	 * Number of articles rejected by the PostPopulatingArticleFilter
+	 */
+	protected final AtomicInteger postFiltered = new AtomicInteger();
+
+	/**
+	 * Number of articles handed to the sink (including known articles)
+	 */
+	protected final AtomicInteger sunk = new AtomicInteger();
+
+	/**
+	 * Constructs an ArticlePipeline and, unless disabled in config, starts the
+	 * threads processing the articles.
+	 * 
+	 * @param fetcher
+	 *            the fetcher the articles are found by
+	 * @param fromDate
+	 *            the earliest date an article may have been published on
+	 * @param toDate
+	 *            the latest date an article may have been published on
+	 * @param sink
+	 *            the sink to hand the processed articles to
+	 */
+	public ArticlePipeline(Fetcher fetcher, Date fromDate, Date toDate, ArticleSink sink) {
+		this.fetcher = fetcher;
+		this.fromDate = fromDate;
+		this.toDate = toDate;
+		this.sink = sink;
+		this.log = fetcher.log;
+
+		Properties config = ConfigReader.getConfig();
+		this.staged = Boolean.parseBoolean(config.getProperty("Fetcher.processArticles.pipeline",
+				"true"));
+
+		if (!this.staged) {
+			return;
+		}
+
+		this.prePopulatingFilter = fetcher.getPrePopulatingArticleFilter(fromDate, toDate);
+		this.postPopulatingFilter = fetcher.getPostPopulatingArticleFilter(fromDate, toDate);
+
+		int queueCapacity = Math.max(1, Integer.parseInt(config.getProperty(
+				"Fetcher.processArticles.queueCapacity", "1000")));
+		this.populateQueue = new ArrayBlockingQueue<Item>(queueCapacity);
+		this.sinkQueue = new ArrayBlockingQueue<Item>(queueCapacity);
+
+		// Same executor as Fetcher.populateArticleData(): the pool size bounds
+		// platform threads, maxConcurrency bounds virtual threads
+		int numThreads = Integer.parseInt(config.getProperty(
+				"Fetcher.populateArticleData.numThreads", "32"));
+		String executorMode = config.getProperty("Fetcher.populateArticleData.executor",
+				ExecutorHelper.MODE_PLATFORM);
+		this.populator = ExecutorHelper.newExecutor(executorMode, numThreads);
+		this.maxInFlight = (ExecutorHelper.usesVirtualThreads(executorMode) ? Integer
+				.parseInt(config.getProperty("Fetcher.populateArticleData.maxConcurrency",
+						"10000")) : numThreads);
+		this.inFlight = new Semaphore(this.maxInFlight);
+
+		this.dispatcher = new Thread(() -> this.dispatch(), "ArticlePipeline-populate");
+		this.sinkFeeder = new Thread(() -> this.feedSink(), "ArticlePipeline-sink");
+		this.dispatcher.start();
+		this.sinkFeeder.start();
+	}
+
+	/**
+	 * Atomically adds an article found by {@code keyword} (see
+	 * {@link Fetcher#addArticle(ConcurrentMap, String, String, Supplier)}).
+	 * If the article has not been found before, it enters the pipeline; this
+	 * method blocks while the queue of articles waiting to be populated is
+	 * full. If it has been found before and already been handed to the sink,
+	 * the sink is notified of the new keyword; if the pipeline no longer holds
+	 * the Article object, a new (unpopulated) one holding all keywords found so
+	 * far is created by {@code articleFactory} for this purpose.
+	 * 
+	 * @param url
+	 *            the url of the article found
+	 * @param keyword
+	 *            the keyword the article was found by
+	 * @param articleFactory
+	 *            supplies the Article object in case the article has not been
+	 *            found before
+	 */
+	public void addArticle(String url, String keyword, Supplier<Article> articleFactory) {
+		if (!this.staged) {
+			this.fetcher.addArticle(this.articles, url, keyword, articleFactory);
+			return;
+		}
+
+		Found[] created = new Found[1];
+
+		Found entry = this.found.computeIfAbsent(url, key -> {
+			created[0] = new Found(articleFactory.get());
+			return created[0];
+		});
+
+		try {
+			if (entry == created[0]) {
+				Article article = entry.article;
+
+				if (this.prePopulatingFilter != null && !this.prePopulatingFilter.test(url)) {
+					this.preFiltered.incrementAndGet();
+					entry.release(false);
+				}
+				else if (this.sink.isKnown(url)) {
+					// Known to the sink: skip population
+					this.known.incrementAndGet();
+					this.sinkQueue.put(new Item(url, article, Item.Kind.KNOWN));
+				}
+				else {
+					this.populateQueue.put(new Item(url, article, Item.Kind.POPULATED));
+				}
+			}
+			else {
+				Article updated = entry.addKeyword(keyword, articleFactory);
+
+				if (updated != null) {
+					this.sinkQueue.put(new Item(url, updated, Item.Kind.UPDATE));
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			this.log.warning("Interrupted while adding article " + url + " to the pipeline");
+		}
+	}
+
+	/**
+	 * Waits until all articles added have been processed and handed to the
+	 * sink. Must be called once after the search has finished. If the pipeline
+	 * is disabled, the articles collected are processed by
+	 * {@link Fetcher#processArticles(Map, Date, Date)} and then handed to the
+	 * sink.
+	 */
+	public void finish() {
+		if (!this.staged) {
+			// Articles known to the sink are not processed
+			Map<String, Article> unknown = new HashMap<String, Article>();
+
+			for (Map.Entry<String, Article> entry : this.fetcher.applyPrePopulatingFilter(
+					this.articles, this.fromDate, this.toDate).entrySet()) {
+				if (this.sink.isKnown(entry.getKey())) {
+					this.sink.acceptKnown(entry.getValue());
+				}
+				else {
+					unknown.put(entry.getKey(), entry.getValue());
+				}
+			}
+
+			Map<String, Article> processed = this.fetcher.processArticles(unknown,
+					this.fromDate, this.toDate);
+
+			for (Article article : processed.values()) {
+				this.sink.accept(article);
+			}
+
+			return;
+		}
+
+		try {
+			this.populateQueue.put(END);
+			this.dispatcher.join();
+			this.sinkFeeder.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			this.log.severe("Interrupted while processing articles for base url "
+					+ this.fetcher.baseURL);
+			this.dispatcher.interrupt();
+			this.sinkFeeder.interrupt();
+		}
+		finally {
+			this.populator.shutdownNow();
+		}
+
+		this.log.fine("Articles found: " + this.found.size() + ", rejected by "
+				+ "PrePopulatingFilter: " + this.preFiltered.get() + ", known to sink: "
+				+ this.known.get() + ", rejected by PostPopulatingFilter: "
+				+ this.postFiltered.get() + ", passed: " + (this.sunk.get() - this.known.get()));
+		this.log.info("Finished processing articles for base url " + this.fetcher.baseURL);
+	}
+
+	/**
+	 * Run by {@link #dispatcher}: submits the articles waiting to be populated
+	 * to {@link #populator} as long as less than {@link #maxInFlight} articles
+	 * are being populated, then waits for all articles to be populated and
+	 * marks the end of {@link #sinkQueue}. The end is marked in any case, so
+	 * that {@link #sinkFeeder} terminates even if this thread fails.
+	 */
+	protected void dispatch() {
+		try {
+			Item item;
+
+			while ((item = this.populateQueue.take()) != END) {
+				this.inFlight.acquire();
+				final Item article = item;
+
+				try {
+					this.populator.execute(() -> this.populate(article));
+				}
+				catch (RuntimeException e) {
+					// Executor rejected the article: populate it on this
+					// thread rather than losing it
+					this.log.warning("Exception thrown when submitting article " + article.url
+							+ " for population: " + e.toString());
+					this.populate(article);
+				}
+			}
+
+			// All permits available: no article left in flight
+			this.inFlight.acquire(this.maxInFlight);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			this.log.warning("Interrupted while populating article data, "
+					+ "remaining articles are not populated");
+		}
+		finally {
+			try {
+				this.sinkQueue.put(END);
+			}
+			catch (InterruptedException e) {
+				// Cannot mark the end: stop the sink feeder directly
+				Thread.currentThread().interrupt();
+				this.sinkFeeder.interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Populates a single article, applies the PostPopulatingArticleFilter and
+	 * passes the article on to {@link #sinkQueue}.
+	 * 
+	 * @param item
+	 *            the article to populate
+	 */
+	protected void populate(Item item) {
+		try {
+			try {
+				item.article.populateData();
+			}
+			catch (Exception e) {
+				// Keep article, as in Fetcher.populateArticleData()
+				this.log.warning("Exception thrown when trying to populate article data: "
+						+ e.toString());
+			}
+
+			Map.Entry<String, Article> entry = new AbstractMap.SimpleImmutableEntry<String, Article>(
+					item.url, item.article);
+
+			if (this.postPopulatingFilter != null && !this.postPopulatingFilter.test(entry)) {
+				this.postFiltered.incrementAndGet();
+				this.found.get(item.url).release(false);
+				return;
+			}
+
+			this.sinkQueue.put(item);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			this.inFlight.release();
+		}
+	}
+
+	/**
+	 * Run by {@link #sinkFeeder}: hands the processed articles and keyword
+	 * updates to the sink until the end of {@link #sinkQueue} is reached.
+	 */
+	protected void feedSink() {
+		try {
+			Item item;
+
+			while ((item = this.sinkQueue.take()) != END) {
+				Found entry = null;
+
+				try {
+					if (item.kind == Item.Kind.UPDATE) {
+						this.sink.update(item.article);
+					}
+					else {
+						// Mark before handing on, so that keywords added
+						// afterwards are reported as updates
+						entry = this.found.get(item.url);
+						entry.markSunk();
+						this.sunk.incrementAndGet();
+
+						if (item.kind == Item.Kind.KNOWN) {
+							this.sink.acceptKnown(item.article);
+						}
+						else {
+							this.sink.accept(item.article);
+						}
+					}
+				}
+				catch (RuntimeException e) {
+					this.log.warning("Exception thrown by sink when processing article "
+							+ item.url + ": " + e.toString());
+				}
+				finally {
+					// Handed to the sink: drop the Article object
+					if (entry != null) {
+						entry.release(true);
+					}
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			this.log.warning("Interrupted while handing articles to sink");
+		}
+	}
+
+	/**
+	 * An article found, holding the Article object while it is processed by
+	 * the pipeline, and only its keywords once it has been handed to the sink
+	 */
+	protected static class Found {
+		/**
+		 * The article, or {@code null} once it has been handed to the sink or
+		 * rejected
+		 */
+		protected Article article;
+
+		/**
+		 * The keywords of the article once it has been handed to the sink, or
+		 * {@code null}
+		 */
+		protected Set<String> keywords;
+
+		/**
+		 * Whether the article has been handed to the sink
+		 */
+		protected boolean sunk;
+
+		/**
+		 * @param article
+		 *            the article found
+		 */
+		protected Found(Article article) {
+			this.article = article;
+		}
+
+		/**
+		 * Adds {@code keyword} to the article and returns the Article object
+		 * to hand to {@link ArticleSink#update(Article)}, if any.
+		 * 
+		 * @param keyword
+		 *            the keyword the article was found by
+		 * @param articleFactory
+		 *            creates a new Article object if the pipeline no longer
+		 *            holds the article
+		 * @return the article holding all keywords found so far, or
+		 *         {@code null} if the sink need not be notified (keyword known
+		 *         before, article not yet handed to the sink or rejected)
+		 */
+		protected synchronized Article addKeyword(String keyword,
+				Supplier<Article> articleFactory) {
+			if (this.article != null) {
+				return (this.article.addKeyword(keyword) && this.sunk ? this.article : null);
+			}
+
+			if (this.keywords == null || !this.keywords.add(keyword)) {
+				return null;
+			}
+
+			Article updated = articleFactory.get();
+
+			for (String existing : this.keywords) {
+				updated.addKeyword(existing);
+			}
+
+			return updated;
+		}
+
+		/**
+		 * Marks the article as handed to the sink.
+		 */
+		protected synchronized void markSunk() {
+			this.sunk = true;
+		}
+
+		/**
+		 * Drops the Article object, keeping only its keywords if it has been
+		 * handed to the sink.
+		 * 
+		 * @param sunk
+		 *            whether the article has been handed to the sink (rather
+		 *            than rejected)
+		 */
+		protected synchronized void release(boolean sunk) {
+			if (this.article != null && sunk) {
+				this.keywords = this.article.getKeywords();
+			}
+
+			this.article = null;
+		}
+	}
+
+	/**
+	 * An article in one of the queues
+	 */
+	protected static class Item {
+		/**
+		 * The url the article was found at
+		 */
+		protected final String url;
+
+		/**
+		 * The article
+		 */
+		protected final Article article;
+
+		/**
+		 * What the sink is to do with the article
+		 */
+		protected final Kind kind;
+
+		/**
+		 * @param url
+		 *            the url the article was found at
+		 * @param article
+		 *            the article
+		 * @param kind
+		 *            what the sink is to do with the article
+		 */
+		protected Item(String url, Article article, Kind kind) {
+			this.url = url;
+			this.article = article;
+			this.kind = kind;
+		}
+
+		/**
+		 * The kinds of items handed to the sink
+		 */
+		protected static enum Kind {
+			/**
+			 * A populated article, handed to {@link ArticleSink#accept(Article)}
+			 */
+			POPULATED,
+
+			/**
+			 * An article known to the sink, handed to
+			 * {@link ArticleSink#acceptKnown(Article)} without populating it
+			 */
+			KNOWN,
+
+			/**
+			 * An article already handed to the sink and found by a further
+			 * keyword, handed to {@link ArticleSink#update(Article)}
+			 */
+			UPDATE
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package framework.fetchers;
+
+import framework.articles.Article;
+
+/**
+ * Receives the articles found by a {@link Fetcher} as soon as they have been
+ * populated and passed all filters (see
+ * {@link Fetcher#searchArticles(String[], java.util.Date, java.util.Date, ArticleSink)}).
+ * All methods of a sink are called from a single thread, one after another, so
+ * that implementations do not need to be thread-safe.
+ * 
+ * An article may be found by further keywords after it has been handed to the
+ * sink. In this case, the keyword is added to the Article object and
+ * {@link #update(Article)} is called, so that sinks that have already
+ * processed the keywords of the article (e.g. by writing them to a database)
+ * can process them again.
+ * 
+ * A sink may report articles it already knows (e.g. from a previous run) by
+ * {@link #isKnown(String)}. Such articles are not populated, but handed to
+ * {@link #acceptKnown(Article)} instead, so that the sink can merge the
+ * keywords the article has been found by. As {@link #isKnown(String)} is
+ * called by the search threads, it must be thread-safe.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public interface ArticleSink {
+	/**
+	 * Called once for every article found, populated and accepted by all
+	 * filters.
+	 * 
+	 * @param article
+	 *            the article
+	 */
+	void accept(Article article);
+
+	/**
+	 * Called when an article already handed to {@link #accept(Article)} has
+	 * been found by a further keyword. Does nothing by default.
+	 * 
+	 * @param article
+	 *            the article, holding all keywords it has been found by so far
+	 */
+	default void update(Article article) {
+	}
+
+	/**
+	 * Returns whether the article with the given {@code url} is already known
+	 * to the sink, in which case it is neither populated nor filtered by the
+	 * PostPopulatingArticleFilter, but handed to
+	 * {@link #acceptKnown(Article)}. May be called concurrently. Returns
+	 * {@code false} by default.
+	 * 
+	 * @param url
+	 *            the url of the article found
+	 * @return whether the article is known
+	 */
+	default boolean isKnown(String url) {
+		return false;
+	}
+
+	/**
+	 * Called once for every article found that {@link #isKnown(String)}
+	 * reported as known. Only the url, the title and the keywords of the
+	 * article are set. Does nothing by default.
+	 * 
+	 * @param article
+	 *            the unpopulated article
+	 */
+	default void acceptKnown(Article article) {
+	}
+}
@@ -0,0 +1,44 @@
+package framework.fetchers;
+
+import framework.articles.Article;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ArticleSink collecting all articles in a map, used by the
+ * {@code searchArticles(...)} methods returning the articles found.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class CollectingArticleSink implements ArticleSink {
+	/**
+	 * The articles collected, mapped to their url
+	 */
+	protected final Map<String, Article> articles = new HashMap<String, Article>();
+
+	@Override
+	public void accept(Article article) {
+		this.articles.put(article.getUrl(), article);
+	}
+
+	@Override
+	public void update(Article article) {
+		// The pipeline may hand a new Article object holding the keywords
+		Article collected = this.articles.get(article.getUrl());
+
+		if (collected != null && collected != article) {
+			for (String keyword : article.getKeywords()) {
+				collected.addKeyword(keyword);
+			}
+		}
+	}
+
+	/**
+	 * @return the articles collected, mapped to their url
+	 */
+	public Map<String, Article> getArticles() {
+		return this.articles;
+	}
+}
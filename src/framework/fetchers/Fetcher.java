@@ -3,19 +3,26 @@ package framework.fetchers;
 import framework.articles.Article;
 import framework.filters.PostPopulatingArticleFilter;
 import framework.filters.PrePopulatingArticleFilter;
+import framework.filters.URLDateFilter;
 import framework.helpers.ConfigReader;
+import framework.helpers.ExecutorHelper;
 import framework.helpers.LoggerGenerator;
 
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -58,23 +65,61 @@ public abstract class Fetcher {
 	 * {@code set} by calling the
 	 * {@link framework.articles.Article#populateData()} method on each article.
 	 * 
+	 * Depending on the property Fetcher.populateArticleData.executor read from
+	 * config, the articles are either populated by a fixed pool of platform
+	 * threads or each on its own virtual thread (see
+	 * {@link framework.helpers.ExecutorHelper}). In the latter case, the number
+	 * of articles populated at once is limited by the property
+	 * Fetcher.populateArticleData.maxConcurrency instead of the number of
+	 * threads; in both cases, the HttpClient additionally limits the number of
+	 * concurrent connections per host.
+	 * 
 	 * @param articles
 	 *            the set of articles to be populated
 	 */
 	protected void populateArticleData(Map<String, Article> articles) {
 		// ExecutorService to asynchronously get article fullTexts
-		int numThreads = Integer.parseInt(ConfigReader.getConfig().getProperty(
+		Properties config = ConfigReader.getConfig();
+		int numThreads = Integer.parseInt(config.getProperty(
 				"Fetcher.populateArticleData.numThreads", "32"));
-		ExecutorService fullTextFetcher = Executors.newFixedThreadPool(numThreads);
+		String executorMode = config.getProperty("Fetcher.populateArticleData.executor",
+				ExecutorHelper.MODE_PLATFORM);
+		ExecutorService fullTextFetcher = ExecutorHelper.newExecutor(executorMode, numThreads);
 		Set<Future<Void>> futures = new HashSet<Future<Void>>();
 
+		// Virtual threads are not limited by the pool size, so bound the number
+		// of articles in flight explicitly
+		final Semaphore inFlight = (ExecutorHelper.usesVirtualThreads(executorMode) ? new Semaphore(
+				Integer.parseInt(config.getProperty("Fetcher.populateArticleData.maxConcurrency",
+						"10000"))) : null);
+
 		// Iterate over all articles found and asynchronously populate fullText
 		// fields
 		for (final Article article : articles.values()) {
+			if (inFlight != null) {
+				try {
+					inFlight.acquire();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					this.log.warning("Interrupted while populating article data, "
+							+ "remaining articles are not populated");
+					break;
+				}
+			}
+
 			Future<Void> future = fullTextFetcher.submit(new Callable<Void>() {
 				@Override
 				public Void call() throws Exception {
-					article.populateData();
+					try {
+						article.populateData();
+					}
+					finally {
+						if (inFlight != null) {
+							inFlight.release();
+						}
+					}
+
 					return null;
 				}
 			});
@@ -108,19 +153,108 @@ public abstract class Fetcher {
 		}
 	}
 
+	/**
+	 * Performs {@code keywordSearch} for every keyword in {@code keywords}
+	 * concurrently and returns once all keywords have been searched. The
+	 * number of keywords searched at once is limited by the property
+	 * Fetcher.searchArticles.keywordThreads read from config; the number of
+	 * concurrent connections per host is additionally limited by the
+	 * HttpClient. Exceptions thrown by {@code keywordSearch} are logged.
+	 * 
+	 * As the keywords are searched concurrently, {@code keywordSearch} must add
+	 * the articles it finds to a thread-safe map, preferably by using
+	 * {@link #addArticle(ConcurrentMap, String, String, Supplier)}.
+	 * 
+	 * @param keywords
+	 *            the keywords to search for
+	 * @param keywordSearch
+	 *            the search performed for every single keyword
+	 */
+	protected void searchKeywords(String[] keywords, final Consumer<String> keywordSearch) {
+		int numThreads = Integer.parseInt(ConfigReader.getConfig().getProperty(
+				"Fetcher.searchArticles.keywordThreads", "4"));
+		ExecutorService keywordSearcher = Executors.newFixedThreadPool(Math.max(1,
+				Math.min(numThreads, keywords.length)));
+		Set<Future<Void>> futures = new HashSet<Future<Void>>();
+
+		for (final String keyword : keywords) {
+			futures.add(keywordSearcher.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					keywordSearch.accept(keyword);
+					return null;
+				}
+			}));
+		}
+
+		// Wait for all keywords to be searched
+		for (Future<Void> future : futures) {
+			try {
+				future.get();
+			}
+			catch (ExecutionException e) {
+				// Exception thrown by keywordSearch
+				this.log.severe("Exception thrown when searching for keyword: "
+						+ e.getCause().toString());
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				this.log.severe("Interrupted while searching for keywords");
+				break;
+			}
+		}
+
+		keywordSearcher.shutdownNow();
+	}
+
+	/**
+	 * Atomically adds an article found by {@code keyword} to {@code articles}.
+	 * If no article with the given {@code url} has been found yet, the article
+	 * returned by {@code articleFactory} (which must already hold
+	 * {@code keyword}) is added to the map. Otherwise, {@code keyword} is added
+	 * to the Article object already contained in the map. Thus, an article
+	 * found by several keywords ends up as a single object holding all of
+	 * these keywords, even if the keywords are searched concurrently.
+	 * 
+	 * @param articles
+	 *            the map of articles found so far, mapped to their url
+	 * @param url
+	 *            the url of the article found
+	 * @param keyword
+	 *            the keyword the article was found by
+	 * @param articleFactory
+	 *            supplies the Article object in case the article has not been
+	 *            found before
+	 */
+	protected void addArticle(ConcurrentMap<String, Article> articles, String url,
+			final String keyword, final Supplier<Article> articleFactory) {
+		articles.compute(url, (key, existing) -> {
+			if (existing == null) {
+				return articleFactory.get();
+			}
+
+			existing.addKeyword(keyword);
+			return existing;
+		});
+	}
+
 	/**
 	 * Processes the passed articles by first filtering them using
-	 * {@link #applyPrePopulatingFilter(Map)}, then calling
+	 * {@link #applyPrePopulatingFilter(Map, Date, Date)}, then calling
 	 * {@link #populateArticleData(Map)} and then filtering again using
-	 * {@link #applyPostPopulatingFilter(Map, Date, Date)}.
+	 * {@link #applyPostPopulatingFilter(Map, Date, Date)}. Used by
+	 * {@link ArticlePipeline} if processing the articles while searching is
+	 * disabled by the property Fetcher.processArticles.pipeline.
 	 * 
 	 * @param articles
 	 *            the articles to process
 	 * @param fromDate
 	 *            the {@code fromDate} parameter that is passed on to
-	 *            {@link #applyPrePopulatingFilter(Map)}
+	 *            {@link #applyPrePopulatingFilter(Map, Date, Date)} and
+	 *            {@link #applyPostPopulatingFilter(Map, Date, Date)}
 	 * @param toDate
-	 *            the {@code fromDate} parameter that is passed on to
+	 *            the {@code toDate} parameter that is passed on to
+	 *            {@link #applyPrePopulatingFilter(Map, Date, Date)} and
 	 *            {@link #applyPostPopulatingFilter(Map, Date, Date)}
 	 * @return the processed articles
 	 */
@@ -132,7 +266,7 @@ public abstract class Fetcher {
 		// articles
 		// (save network calls)
 		this.log.fine("Number of articles before PrePopulatingFilter: " + articles.size());
-		articles = this.applyPrePopulatingFilter(articles);
+		articles = this.applyPrePopulatingFilter(articles, fromDate, toDate);
 		this.log.fine("Number of articles after PrePopulatingFilter: " + articles.size());
 
 		// Populate articles with additional data
@@ -152,24 +286,47 @@ public abstract class Fetcher {
 		return articles;
 	}
 
+	/**
+	 * Filters the passed articles using the PrePopulatingArticleFilter
+	 * provided by {@link #getPrePopulatingArticleFilter()}, without any date
+	 * range. Equivalent to
+	 * {@code applyPrePopulatingFilter(articles, null, null)}.
+	 * 
+	 * @param articles
+	 *            the articles collected by
+	 *            {@link #searchArticles(String[], Date, Date)}
+	 * @return the desired articles to be populated
+	 */
+	protected Map<String, Article> applyPrePopulatingFilter(Map<String, Article> articles) {
+		return this.applyPrePopulatingFilter(articles, null, null);
+	}
+
 	/**
 	 * This method is called by {@link #processArticles(Map, Date, Date)} after
 	 * collecting articles, but before populating them. It uses the
 	 * PrePopulatingArticleFilter provided by
-	 * {@link #getPrePopulatingArticleFilter()} to filter out undesired articles
-	 * based on their URL. By default, {@link #getPrePopulatingArticleFilter()}
-	 * returns {@code null} so that the articles are not filtered. Subclasses
-	 * can override {@link #getPrePopulatingArticleFilter()} to, for example,
-	 * filter out articles with specific URL suffixes using a
-	 * {@link framework.filters.URLSuffixFilter}.
+	 * {@link #getPrePopulatingArticleFilter(Date, Date)} to filter out
+	 * undesired articles based on their URL. By default, no filter is applied
+	 * unless a subclass overrides {@link #getPrePopulatingArticleFilter()} to,
+	 * for example, filter out articles with specific URL suffixes using a
+	 * {@link framework.filters.URLSuffixFilter}, or provides the pattern of the
+	 * publication date contained in its article URLs via
+	 * {@link #getURLDatePattern()}.
 	 * 
 	 * @param articles
 	 *            the articles collected by
 	 *            {@link #searchArticles(String[], Date, Date)}
+	 * @param fromDate
+	 *            the {@code fromDate} parameter passed to
+	 *            {@link #searchArticles(String[], Date, Date)}
+	 * @param toDate
+	 *            the {@code toDate} parameter passed to
+	 *            {@link #searchArticles(String[], Date, Date)}
 	 * @return the desired articles to be populated
 	 */
-	protected Map<String, Article> applyPrePopulatingFilter(Map<String, Article> articles) {
-		PrePopulatingArticleFilter filter = this.getPrePopulatingArticleFilter();
+	protected Map<String, Article> applyPrePopulatingFilter(Map<String, Article> articles,
+			Date fromDate, Date toDate) {
+		PrePopulatingArticleFilter filter = this.getPrePopulatingArticleFilter(fromDate, toDate);
 
 		// null returned: no filtering
 		if (filter == null) {
@@ -185,9 +342,9 @@ public abstract class Fetcher {
 
 	/**
 	 * Returns the PrePopulatingArticleFilter used by
-	 * {@link #applyPrePopulatingFilter(Map)}. By default, {@code null} is
-	 * returned so that no filter is applied. Can be overridden by subclasses to
-	 * enable filtering based on the URL of the article.
+	 * {@link #getPrePopulatingArticleFilter(Date, Date)}. By default,
+	 * {@code null} is returned so that no filter is applied. Can be overridden
+	 * by subclasses to enable filtering based on the URL of the article.
 	 * 
 	 * @return the PrePopulatingArticleFilter used to filter out undesired
 	 *         articles
@@ -196,6 +353,57 @@ public abstract class Fetcher {
 		return null;
 	}
 
+	/**
+	 * Returns the PrePopulatingArticleFilter used by
+	 * {@link #applyPrePopulatingFilter(Map, Date, Date)} and
+	 * {@link ArticlePipeline}. By default, the filter returned by
+	 * {@link #getPrePopulatingArticleFilter()} is combined with a
+	 * {@link framework.filters.URLDateFilter} rejecting articles whose URL
+	 * shows that they were published outside the given dates, if
+	 * {@link #getURLDatePattern()} returns a pattern. Returns {@code null} if
+	 * no filter is to be applied.
+	 * 
+	 * @param fromDate
+	 *            the {@code fromDate} parameter passed to
+	 *            {@link #searchArticles(String[], Date, Date)}
+	 * @param toDate
+	 *            the {@code toDate} parameter passed to
+	 *            {@link #searchArticles(String[], Date, Date)}
+	 * @return the PrePopulatingArticleFilter used to filter out undesired
+	 *         articles
+	 */
+	protected PrePopulatingArticleFilter getPrePopulatingArticleFilter(Date fromDate, Date toDate) {
+		PrePopulatingArticleFilter filter = this.getPrePopulatingArticleFilter();
+		String datePattern = this.getURLDatePattern();
+
+		if (datePattern == null || (fromDate == null && toDate == null)) {
+			return filter;
+		}
+
+		URLDateFilter dateFilter = new URLDateFilter(datePattern, fromDate, toDate);
+
+		if (filter == null) {
+			return dateFilter;
+		}
+
+		return url -> filter.test(url) && dateFilter.test(url);
+	}
+
+	/**
+	 * Returns the Regular Expression extracting the publication date from the
+	 * URL of an article, using the named groups {@code year}, {@code month}
+	 * and {@code day} (see {@link framework.filters.URLDateFilter}). By
+	 * default, {@code null} is returned, meaning that the article URLs do not
+	 * contain a date. Can be overridden by subclasses whose article URLs
+	 * contain the publication date, so that articles published outside the
+	 * searched date range are not populated.
+	 * 
+	 * @return the Regular Expression, or {@code null}
+	 */
+	protected String getURLDatePattern() {
+		return null;
+	}
+
 	/**
 	 * This method is called by {@link #processArticles(Map, Date, Date)} after
 	 * populating all collected articles, but before returning them. It uses the
@@ -290,4 +498,31 @@ public abstract class Fetcher {
 	 */
 	public abstract Map<String, Article> searchArticles(String[] keywords, Date fromDate,
 			Date toDate);
+
+	/**
+	 * Searches for articles like {@link #searchArticles(String[], Date, Date)},
+	 * but hands every article to {@code sink} instead of returning a map.
+	 * Fetchers based on the {@code searchArticles(...)} template methods of the
+	 * direct subclasses process the articles in an {@link ArticlePipeline}, so
+	 * that articles are populated while the search is still going on and reach
+	 * {@code sink} as soon as they are done. By default, this method calls
+	 * {@link #searchArticles(String[], Date, Date)} and hands the articles
+	 * returned to {@code sink}.
+	 * 
+	 * @param keywords
+	 *            the keywords to be searched for
+	 * @param fromDate
+	 *            the earliest date an article may have been published on to be
+	 *            returned
+	 * @param toDate
+	 *            the latest date an article may have been published on to be
+	 *            returned
+	 * @param sink
+	 *            the sink to hand the articles found to
+	 */
+	public void searchArticles(String[] keywords, Date fromDate, Date toDate, ArticleSink sink) {
+		for (Article article : this.searchArticles(keywords, fromDate, toDate).values()) {
+			sink.accept(article);
+		}
+	}
 }
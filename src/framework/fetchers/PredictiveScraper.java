@@ -1,16 +1,23 @@
 package framework.fetchers;
 
-import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.Deque;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
 import framework.articles.Article;
+import framework.helpers.ConfigReader;
+import framework.helpers.ConnectionHelper;
+import framework.html.SelectorCache;
+import framework.http.CircuitOpenException;
 
 /**
  * Base class for all Scraper classes used to scrape data sources with
@@ -40,7 +47,10 @@ public abstract class PredictiveScraper extends Scraper {
 	 * {@link framework.articles.Article} objects representing articles that contain one
 	 * or more of the strings in {@code keywords} and that were published on or
 	 * after {@code fromDate} and on or before {@code toDate}, mapped to their
-	 * URL. This method uses {@link #getSearchURL(String, Date, Date, int, int)}
+	 * URL. The keywords are searched concurrently (see
+	 * {@link #searchKeywords(String[], java.util.function.Consumer)}), each by
+	 * {@link #searchKeyword(String, Date, Date, int, ArticlePipeline)}, which
+	 * uses {@link #getSearchURL(String, Date, Date, int, int)}
 	 * to iterate over the pagination of the search function of the scraped news
 	 * site, calls the returned URL and retrieves all search framework.results using the
 	 * selector provided by {@link #getSearchResultsSelector()}. These framework.results
@@ -66,83 +76,222 @@ public abstract class PredictiveScraper extends Scraper {
 	 */
 	protected Map<String, Article> searchArticles(String[] keywords, Date fromDate, Date toDate,
 			int articlesPerPage) {
+		CollectingArticleSink sink = new CollectingArticleSink();
+		this.searchArticles(keywords, fromDate, toDate, articlesPerPage, sink);
+		return sink.getArticles();
+	}
+
+	/**
+	 * Template method searching for articles like
+	 * {@link #searchArticles(String[], Date, Date, int)}, handing every article
+	 * to {@code sink}. The articles found are filtered and populated by an
+	 * {@link ArticlePipeline} while the search is still going on.
+	 * 
+	 * @param keywords
+	 *            the keywords to search for
+	 * @param fromDate
+	 *            the earliest date an article may have been published on to be
+	 *            found by the returned query
+	 * @param toDate
+	 *            the latest date an article may have been published on to be
+	 *            found by the returned query
+	 * @param articlesPerPage
+	 *            the number of articles per search page
+	 * @param sink
+	 *            the sink to hand the articles found to
+	 */
+	protected void searchArticles(String[] keywords, Date fromDate, Date toDate,
+			int articlesPerPage, ArticleSink sink) {
 		this.log.info("Start scraping base url " + this.baseURL);
 
-		// Article set to be returned
-		Map<String, Article> articles = new HashMap<String, Article>();
+		// Pipeline filtering and populating the articles, fed concurrently by
+		// the keyword searches
+		ArticlePipeline articles = new ArticlePipeline(this, fromDate, toDate, sink);
+
+		try {
+			this.searchKeywords(keywords, keyword -> this.searchKeyword(keyword, fromDate, toDate,
+					articlesPerPage, articles));
+
+			this.log.info("Finished scraping base url " + this.baseURL);
+		}
+		finally {
+			// Wait for the remaining articles to be processed, even if the
+			// search failed
+			articles.finish();
+		}
+	}
+
+	/**
+	 * Helper method used by {@link #searchArticles(String[], Date, Date, int)}
+	 * to iterate over the pagination of the search results for a single
+	 * {@code keyword}, adding all articles found to {@code articles}. Is
+	 * called concurrently for different keywords.
+	 * 
+	 * As all search page URLs are known beforehand, the next pages are fetched
+	 * speculatively while the current page is processed: up to
+	 * PredictiveScraper.searchArticles.prefetchPages (read from config) pages
+	 * are in flight at once. Pages are still processed strictly in order, and
+	 * all outstanding requests are cancelled as soon as the end of the
+	 * pagination has been reached. A page that cannot be fetched is skipped;
+	 * scraping for the keyword stops only if the circuit breaker of the host is
+	 * open or all pages of a prefetch window failed.
+	 * 
+	 * @param keyword
+	 *            the keyword to search for
+	 * @param fromDate
+	 *            the earliest date an article may have been published on to be
+	 *            found by the returned query
+	 * @param toDate
+	 *            the latest date an article may have been published on to be
+	 *            found by the returned query
+	 * @param articlesPerPage
+	 *            the number of articles per search page
+	 * @param articles
+	 *            the pipeline to add the articles found to
+	 */
+	protected void searchKeyword(String keyword, Date fromDate, Date toDate, int articlesPerPage,
+			ArticlePipeline articles) {
+		this.log.info("Start scraping for keyword " + keyword);
+
+		// Set limit and offsets for pagination: offset is the offset of the
+		// page currently processed, nextOffset the offset of the next page to
+		// be requested
+		int limit = articlesPerPage;
+		int offset = 0;
+		int nextOffset = 0;
 
-		for (String keyword : keywords) {
-			this.log.info("Start scraping for keyword " + keyword);
+		// Pages requested but not yet processed, in order
+		int prefetchPages = Math.max(1, Integer.parseInt(ConfigReader.getConfig().getProperty(
+				"PredictiveScraper.searchArticles.prefetchPages", "4")));
+		ExecutorService pageFetcher = Executors.newFixedThreadPool(prefetchPages);
+		Deque<Future<Document>> window = new ArrayDeque<Future<Document>>();
 
-			// Set limit and offset for pagination, initialize articleElements
-			// object
-			int limit = articlesPerPage;
-			int offset = 0;
-			Elements articleElements = null;
+		// Consecutive pages that could not be fetched; if all pages of the
+		// prefetch window fail, the end of the pagination is assumed
+		int failedPages = 0;
 
+		try {
 			// Iterate over pagination
 			while (true) {
-				try {
-					// Do not raise offset in first loop invocation
-					if (articleElements != null) {
-						offset += limit;
-					}
+				// Keep prefetch window filled
+				while (window.size() < prefetchPages) {
+					window.addLast(this.requestSearchPage(pageFetcher, keyword, fromDate, toDate,
+							nextOffset, limit));
+					nextOffset += limit;
+				}
 
-					// Parse HTML content
-					String searchUrl = this.getSearchURL(keyword, fromDate, toDate, offset, limit);
-					Document searchResult = Jsoup.connect(searchUrl).timeout(60000)
-							.userAgent(this.userAgent).get();
-					articleElements = searchResult.select(this.getSearchResultsSelector());
+				Document searchResult;
 
-					// Exit loop when no more articles are found
-					if (articleElements.size() < 1) {
-						this.log.info("No more articles found, stopped scraping for keyword "
+				try {
+					searchResult = window.pollFirst().get();
+				}
+				catch (ExecutionException e) {
+					// Failed requests have already been retried by the
+					// HttpClient, so the failure is persistent - skip page,
+					// unless the host is considered down
+					String searchURL = this.getSearchURL(keyword, fromDate, toDate, offset, limit);
+					failedPages++;
+
+					if (e.getCause() instanceof CircuitOpenException
+							|| failedPages >= prefetchPages) {
+						this.log.severe("Exception thrown when processing url " + searchURL + ": "
+								+ e.getCause().toString() + ", stopped scraping for keyword "
 								+ keyword);
 						break;
 					}
 
-					// Iterate over articleElements, generate Article objects
-					// and add them to set
-					for (Element articleElement : articleElements) {
-						String url = this.getUrlFromSearchResult(articleElement);
-						String title = this.getTitleFromSearchResult(articleElement);
-
-						if (!articles.containsKey(url)) {
-							// Article has not been found yet: create Article
-							// object, add keyword to article, add article to
-							// map
-							articles.put(url, this.createArticle(url, title, keyword));
-						}
-						else {
-							// Article was already found before, add keyword to
-							// Article object in map
-							articles.get(url).addKeyword(keyword);
-						}
+					this.log.severe("Exception thrown when processing url " + searchURL + ": "
+							+ e.getCause().toString() + ", skipped page");
+					offset += limit;
+					continue;
+				}
+
+				failedPages = 0;
 
-					}
+				Elements articleElements = SelectorCache.select(this.getSearchResultsSelector(),
+						searchResult);
+
+				// Exit loop when no more articles are found
+				if (articleElements.size() < 1) {
+					this.log.info("No more articles found, stopped scraping for keyword "
+							+ keyword);
+					break;
+				}
+
+				// Iterate over articleElements, generate Article objects
+				// and add them to pipeline (or add keyword to the Article
+				// object already found), skipping articles known to be too
+				// old
+				int olderArticles = 0;
 
-					// Call hook if less articles are found than expected
-					// Hook returns true if loop should be aborted
-					if (articleElements.size() < limit) {
-						if (this.lessArticlesThanExpectedHook(articlesPerPage,
-								articleElements.size(), keyword)) {
-							break;
-						}
+				for (Element articleElement : articleElements) {
+					if (this.isOlderThan(articleElement, fromDate)) {
+						olderArticles++;
+						continue;
 					}
+
+					String url = this.getUrlFromSearchResult(articleElement);
+					String title = this.getTitleFromSearchResult(articleElement);
+
+					articles.addArticle(url, keyword,
+							() -> this.createArticle(url, title, keyword));
 				}
-				catch (IOException e) {
-					// TODO Auto-generated catch block
-					this.log.severe("IOException when processing url "
-							+ this.getSearchURL(keyword, fromDate, toDate, offset, limit) + ": "
-							+ e.getMessage());
+
+				// Results sorted by date: all further pages are older
+				if (olderArticles == articleElements.size() && this.isSortedByDateDescending()) {
+					this.log.info("Reached articles published before " + fromDate
+							+ ", stopped scraping for keyword " + keyword);
+					break;
 				}
+
+				// Call hook if less articles are found than expected
+				// Hook returns true if loop should be aborted
+				if (articleElements.size() < limit) {
+					if (this.lessArticlesThanExpectedHook(articlesPerPage,
+							articleElements.size(), keyword)) {
+						break;
+					}
+				}
+
+				offset += limit;
 			}
 		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			this.log.severe("Interrupted while scraping for keyword " + keyword);
+		}
+		finally {
+			// Cancel outstanding page requests
+			for (Future<Document> future : window) {
+				future.cancel(true);
+			}
 
-		this.log.info("Finished scraping base url " + this.baseURL);
+			pageFetcher.shutdownNow();
+		}
+	}
 
-		// Process articles by filtering and populating, then return
-		return this.processArticles(articles, fromDate, toDate);
+	/**
+	 * Asynchronously requests the search page for the given {@code keyword},
+	 * {@code offset} and {@code limit} using {@code pageFetcher}.
+	 * 
+	 * @param pageFetcher
+	 *            the ExecutorService to perform the request on
+	 * @param keyword
+	 *            the keyword to search for
+	 * @param fromDate
+	 *            the earliest date an article may have been published on
+	 * @param toDate
+	 *            the latest date an article may have been published on
+	 * @param offset
+	 *            the number of the first article on the page
+	 * @param limit
+	 *            the number of articles per page
+	 * @return the Future holding the parsed search page
+	 */
+	protected Future<Document> requestSearchPage(ExecutorService pageFetcher, String keyword,
+			Date fromDate, Date toDate, int offset, int limit) {
+		String searchUrl = this.getSearchURL(keyword, fromDate, toDate, offset, limit);
+		return pageFetcher.submit(() -> ConnectionHelper.getDocument(searchUrl, this.userAgent));
 	}
 
 	/**
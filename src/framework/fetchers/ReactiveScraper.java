@@ -2,15 +2,15 @@ package framework.fetchers;
 
 import java.io.IOException;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
 
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
 import framework.articles.Article;
+import framework.helpers.ConnectionHelper;
+import framework.html.SelectorCache;
 
 /**
  * Base class for all Scraper classes used to scrape data sources with
@@ -67,85 +67,134 @@ public abstract class ReactiveScraper extends Scraper {
 	 */
 	protected Map<String, Article> searchArticles(String[] keywords, Date fromDate, Date toDate,
 			int articlesPerPage) {
+		CollectingArticleSink sink = new CollectingArticleSink();
+		this.searchArticles(keywords, fromDate, toDate, articlesPerPage, sink);
+		return sink.getArticles();
+	}
+
+	/**
+	 * Template method searching for articles like
+	 * {@link #searchArticles(String[], Date, Date, int)}, handing every article
+	 * to {@code sink}. The articles found are filtered and populated by an
+	 * {@link ArticlePipeline} while the search is still going on. If a search
+	 * page cannot be fetched, scraping for the keyword stops, as the URL of
+	 * the next page is only known from the failed page.
+	 * 
+	 * @param keywords
+	 *            the keywords to search for
+	 * @param fromDate
+	 *            the earliest date an article may have been published on to be
+	 *            found by the returned query
+	 * @param toDate
+	 *            the latest date an article may have been published on to be
+	 *            found by the returned query
+	 * @param articlesPerPage
+	 *            the number of articles per search page
+	 * @param sink
+	 *            the sink to hand the articles found to
+	 */
+	protected void searchArticles(String[] keywords, Date fromDate, Date toDate,
+			int articlesPerPage, ArticleSink sink) {
 		this.log.info("Start scraping base url " + this.baseURL);
 
-		// Article set to be returned
-		Map<String, Article> articles = new HashMap<String, Article>();
-
-		for (String keyword : keywords) {
-			this.log.info("Start scraping for keyword " + keyword);
-
-			// Set limit and offset for pagination, initialize articleElements
-			// object
-			// int limit = articlesPerPage;
-			// int offset = 0;
-			String searchUrl = this.getFirstSearchURL(keyword, fromDate, toDate, articlesPerPage);
-			Document searchResult = null;
-			Elements articleElements = null;
-
-			// Iterate over pagination
-			while (searchUrl != null) {
-				try {
-					// Parse HTML content
-					// String searchUrl = this.getSearchURL(keyword, fromDate,
-					// toDate, offset, limit);
-					searchResult = Jsoup.connect(searchUrl).timeout(60000)
-							.userAgent(this.userAgent).get();
-					articleElements = searchResult.select(this.getSearchResultsSelector());
-
-					// Exit loop when no more articles are found
-					if (articleElements.size() < 1) {
-						this.log.info("No more articles found, stopped scraping for keyword "
-								+ keyword);
-						break;
-					}
+		// Pipeline filtering and populating the articles. Keywords are searched
+		// one after another, as getNextSearchURL() implementations may keep
+		// state for the keyword currently processed (see e.g.
+		// DailyExpressScraper).
+		ArticlePipeline articles = new ArticlePipeline(this, fromDate, toDate, sink);
 
-					// Iterate over articleElements, generate Article objects
-					// and add them to set
-					for (Element articleElement : articleElements) {
-						String url = this.getUrlFromSearchResult(articleElement);
-						String title = this.getTitleFromSearchResult(articleElement);
-
-						if (!articles.containsKey(url)) {
-							// Article has not been found yet: create Article
-							// object, add keyword to article, add article to
-							// map
-							articles.put(url, this.createArticle(url, title, keyword));
-						}
-						else {
-							// Article was already found before, add keyword to
-							// Article object in map
-							articles.get(url).addKeyword(keyword);
+		try {
+			for (String keyword : keywords) {
+				this.log.info("Start scraping for keyword " + keyword);
+
+				// Set limit and offset for pagination, initialize
+				// articleElements object
+				// int limit = articlesPerPage;
+				// int offset = 0;
+				String searchUrl = this.getFirstSearchURL(keyword, fromDate, toDate,
+						articlesPerPage);
+				Document searchResult = null;
+				Elements articleElements = null;
+
+				// Iterate over pagination
+				while (searchUrl != null) {
+					try {
+						// Parse HTML content
+						// String searchUrl = this.getSearchURL(keyword, fromDate,
+						// toDate, offset, limit);
+						searchResult = ConnectionHelper.getDocument(searchUrl, this.userAgent);
+						articleElements = SelectorCache.select(this.getSearchResultsSelector(),
+								searchResult);
+
+						// Exit loop when no more articles are found
+						if (articleElements.size() < 1) {
+							this.log.info("No more articles found, stopped scraping for keyword "
+									+ keyword);
+							break;
 						}
 
-					}
+						// Iterate over articleElements, generate Article objects
+						// and add them to set, skipping articles known to be too
+						// old
+						int olderArticles = 0;
+
+						for (Element articleElement : articleElements) {
+							if (this.isOlderThan(articleElement, fromDate)) {
+								olderArticles++;
+								continue;
+							}
 
-					// Call hook if less articles are found than expected
-					// Hook returns true if loop should be aborted
-					if (articleElements.size() < articlesPerPage) {
-						if (this.lessArticlesThanExpectedHook(articlesPerPage,
-								articleElements.size(), keyword)) {
+							String url = this.getUrlFromSearchResult(articleElement);
+							String title = this.getTitleFromSearchResult(articleElement);
+
+							// Add new Article object to pipeline or add keyword to
+							// the Article object already found
+							articles.addArticle(url, keyword,
+									() -> this.createArticle(url, title, keyword));
+						}
+
+						// Results sorted by date: all further pages are older
+						if (olderArticles == articleElements.size()
+								&& this.isSortedByDateDescending()) {
+							this.log.info("Reached articles published before " + fromDate
+									+ ", stopped scraping for keyword " + keyword);
 							break;
 						}
+
+						// Call hook if less articles are found than expected
+						// Hook returns true if loop should be aborted
+						if (articleElements.size() < articlesPerPage) {
+							if (this.lessArticlesThanExpectedHook(articlesPerPage,
+									articleElements.size(), keyword)) {
+								break;
+							}
+						}
+					}
+					catch (IOException e) {
+						// Failed requests have already been retried by the
+						// HttpClient, so the failure is persistent (or the
+						// circuit breaker of the host is open). As the next
+						// page can only be determined from this page, the
+						// remaining pages cannot be reached
+						this.log.severe("IOException when processing url " + searchUrl + ": "
+								+ e.getMessage() + ", stopped scraping for keyword " + keyword);
+						break;
 					}
-				}
-				catch (IOException e) {
-					// TODO Auto-generated catch block
-					this.log.severe("IOException when processing url " + searchUrl + ": "
-							+ e.getMessage());
-				}
 				
-				// Done processing this search page: get next search page URL
-				// Returns null if no 'next' link can be found, breaking the
-				// loop
-				searchUrl = this.getNextSearchURL(searchResult);
+					// Done processing this search page: get next search page URL
+					// Returns null if no 'next' link can be found, breaking the
+					// loop
+					searchUrl = this.getNextSearchURL(searchResult);
+				}
 			}
-		}
-
-		this.log.info("Finished scraping base url " + this.baseURL);
 
-		// Process articles by filtering and populating, then return
-		return this.processArticles(articles, fromDate, toDate);
+			this.log.info("Finished scraping base url " + this.baseURL);
+		}
+		finally {
+			// Wait for the remaining articles to be processed, even if the
+			// search failed
+			articles.finish();
+		}
 	}
 
 	/**
@@ -171,7 +220,7 @@ public abstract class ReactiveScraper extends Scraper {
 			return null;
 		}
 
-		Element element = doc.select(this.getNextPageSelector()).first();
+		Element element = SelectorCache.selectFirst(this.getNextPageSelector(), doc);
 
 		if (element == null) {
 			return null;
@@ -2,6 +2,7 @@ package framework.fetchers;
 
 import framework.articles.Article;
 import framework.helpers.ConfigReader;
+import framework.html.SelectorCache;
 
 import java.util.Date;
 
@@ -81,7 +82,7 @@ public abstract class Scraper extends Fetcher {
 	 * @return the url of the passed search result
 	 */
 	protected String getUrlFromSearchResult(Element articleElement) {
-		return articleElement.select(this.getUrlSelector()).attr("abs:href");
+		return SelectorCache.select(this.getUrlSelector(), articleElement).attr("abs:href");
 	}
 
 	/**
@@ -98,7 +99,66 @@ public abstract class Scraper extends Fetcher {
 	 * @return the title of the passed search result
 	 */
 	protected String getTitleFromSearchResult(Element articleElement) {
-		return articleElement.select(this.getTitleSelector()).text();
+		return SelectorCache.select(this.getTitleSelector(), articleElement).text();
+	}
+
+	/**
+	 * Template method called by the {@code searchArticles(...)} implementations
+	 * to extract the publication date from an {@link org.jsoup.nodes.Element}
+	 * containing information about one search result. If only the day of
+	 * publication is known, the end of that day must be returned, so that the
+	 * returned date is never earlier than the actual publication date. The
+	 * default implementation returns {@code null}, meaning that the date is
+	 * unknown. Can be overridden in subclasses whose search pages display the
+	 * publication date; see {@link #isOlderThan(Element, Date)}.
+	 * 
+	 * @param articleElement
+	 *            an HTML element containing information about a single search
+	 *            result
+	 * @return the publication date of the passed search result, or
+	 *         {@code null} if it is unknown
+	 */
+	protected Date getDateFromSearchResult(Element articleElement) {
+		return null;
+	}
+
+	/**
+	 * Returns whether the search results are sorted by publication date, newest
+	 * first. If so, the {@code searchArticles(...)} implementations stop paging
+	 * for a keyword as soon as a search page only contains articles published
+	 * before {@code fromDate} (according to
+	 * {@link #getDateFromSearchResult(Element)}). The default implementation
+	 * returns {@code false}.
+	 * 
+	 * @return whether the search results are sorted by date, newest first
+	 */
+	protected boolean isSortedByDateDescending() {
+		return false;
+	}
+
+	/**
+	 * Returns whether the search result {@code articleElement} is known to
+	 * have been published before {@code fromDate}, in which case it is not
+	 * added to the articles found. Always returns {@code false} if the date
+	 * of the search result is unknown, or if the property
+	 * Scraper.searchArticles.dateCutoff read from config is {@code false}.
+	 * 
+	 * @param articleElement
+	 *            an HTML element containing information about a single search
+	 *            result
+	 * @param fromDate
+	 *            the earliest date an article may have been published on
+	 * @return whether the search result is older than {@code fromDate}
+	 */
+	protected boolean isOlderThan(Element articleElement, Date fromDate) {
+		if (fromDate == null
+				|| !Boolean.parseBoolean(ConfigReader.getConfig().getProperty(
+						"Scraper.searchArticles.dateCutoff", "true"))) {
+			return false;
+		}
+
+		Date date = this.getDateFromSearchResult(articleElement);
+		return date != null && date.before(fromDate);
 	}
 
 	/**
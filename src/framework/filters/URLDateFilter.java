@@ -0,0 +1,153 @@
+package framework.filters;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A PrePopulatingArticleFilter implementation used to filter out articles based
+ * on the publication date contained in their URL (e.g.
+ * {@code http://www.theguardian.com/world/2015/mar/02/...}). The date is
+ * extracted using a Regular Expression with the named groups {@code year},
+ * {@code month} and {@code day}, of which only {@code year} is mandatory. The
+ * month may be given as a number or as an English month name (only the first
+ * three letters are regarded). If the date is only known partially (e.g. year
+ * and month), the article is excluded only if the entire period lies outside
+ * the accepted dates. URLs not matching the Regular Expression or containing
+ * an invalid date are accepted, so that the articles can still be filtered by
+ * a {@link PublicationDateFilter} after populating them.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class URLDateFilter implements PrePopulatingArticleFilter {
+	/**
+	 * English month names, abbreviated to three letters
+	 */
+	protected final static String MONTHS = "janfebmaraprmayjunjulaugsepoctnovdec";
+
+	/**
+	 * the Regular Expression extracting the date from the URL
+	 */
+	protected final Pattern datePattern;
+
+	/**
+	 * the earliest accepted date
+	 */
+	protected Date earliestDate;
+
+	/**
+	 * the latest accepted date
+	 */
+	protected Date latestDate;
+
+	/**
+	 * Constructs a URLDateFilter with the given properties.
+	 * 
+	 * @param datePattern
+	 *            the Regular Expression extracting the date from the URL,
+	 *            containing the named group {@code year} and optionally the
+	 *            named groups {@code month} and {@code day}
+	 * @param earliestDate
+	 *            the earliest accepted date by this filter, or {@code null} to
+	 *            set no earliest date
+	 * @param latestDate
+	 *            the latest accepted date by this filter, or {@code null} to
+	 *            set no latest date
+	 */
+	public URLDateFilter(String datePattern, Date earliestDate, Date latestDate) {
+		this.datePattern = Pattern.compile(datePattern);
+		this.earliestDate = earliestDate;
+		this.latestDate = latestDate;
+	}
+
+	@Override
+	public boolean test(String t) {
+		Matcher matcher = this.datePattern.matcher(t);
+
+		// Date not contained in URL: no testing possible
+		if (!matcher.find()) {
+			return true;
+		}
+
+		String month = this.group(matcher, "month");
+		String day = this.group(matcher, "day");
+
+		try {
+			int monthValue = (month == null ? 1 : this.parseMonth(month));
+
+			if (monthValue < 1) {
+				return true;
+			}
+
+			// Period the article was published in
+			LocalDate start = LocalDate.of(Integer.parseInt(matcher.group("year")), monthValue,
+					(day == null ? 1 : Integer.parseInt(day)));
+			LocalDate end = (day != null ? start.plusDays(1) : (month != null ? start
+					.plusMonths(1) : start.plusYears(1)));
+			ZoneId zone = ZoneId.systemDefault();
+
+			// If this.earliestDate is set, compare with end of period
+			if (this.earliestDate != null
+					&& !Date.from(end.atStartOfDay(zone).toInstant()).after(this.earliestDate)) {
+				return false;
+			}
+
+			// If this.latestDate is set, compare with start of period
+			if (this.latestDate != null
+					&& Date.from(start.atStartOfDay(zone).toInstant()).after(this.latestDate)) {
+				return false;
+			}
+		}
+		catch (NumberFormatException | DateTimeException e) {
+			// Invalid date: no testing possible
+			return true;
+		}
+
+		// No conflicts found
+		return true;
+	}
+
+	/**
+	 * @param matcher
+	 *            the matcher
+	 * @param name
+	 *            the name of the group
+	 * @return the value of the named group, or {@code null} if the pattern
+	 *         does not contain the group or the group did not match
+	 */
+	protected String group(Matcher matcher, String name) {
+		try {
+			return matcher.group(name);
+		}
+		catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @param month
+	 *            the month as a number or an English month name
+	 * @return the number of the month (1 for January), or -1 if unknown
+	 */
+	protected int parseMonth(String month) {
+		if (month.isEmpty()) {
+			return -1;
+		}
+
+		if (Character.isDigit(month.charAt(0))) {
+			return Integer.parseInt(month);
+		}
+
+		if (month.length() < 3) {
+			return -1;
+		}
+
+		int index = MONTHS.indexOf(month.substring(0, 3).toLowerCase(Locale.ENGLISH));
+		return (index % 3 == 0 ? index / 3 + 1 : -1);
+	}
+}
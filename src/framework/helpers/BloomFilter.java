@@ -0,0 +1,132 @@
+package framework.helpers;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter for strings: a compact, probabilistic set answering whether a
+ * string may have been added ({@link #mightContain(String)}). Strings that
+ * have been added are always reported, strings that have not been added are
+ * reported with a probability of about the false positive rate passed to the
+ * constructor (as long as no more than the expected number of strings are
+ * added). Thus, a negative answer is exact, while a positive answer must be
+ * confirmed by an exact (but more expensive) check.
+ * 
+ * The filter can be read and written concurrently.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class BloomFilter {
+	/**
+	 * The bits of the filter
+	 */
+	protected final AtomicLongArray bits;
+
+	/**
+	 * The number of bits of the filter
+	 */
+	protected final long numBits;
+
+	/**
+	 * The number of bits set per string
+	 */
+	protected final int numHashes;
+
+	/**
+	 * Constructs an empty BloomFilter sized for {@code expectedInsertions}
+	 * strings and the given false positive rate.
+	 * 
+	 * @param expectedInsertions
+	 *            the number of strings expected to be added
+	 * @param falsePositiveRate
+	 *            the desired probability of reporting a string that has not
+	 *            been added, between 0 and 1 (exclusive)
+	 */
+	public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+		if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+			throw new IllegalArgumentException("False positive rate must be between 0 and 1: "
+					+ falsePositiveRate);
+		}
+
+		long n = Math.max(1, expectedInsertions);
+		long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (m + 63) / 64));
+
+		this.bits = new AtomicLongArray(words);
+		this.numBits = (long) words * 64;
+		this.numHashes = (int) Math.max(1, Math.min(30, Math.round((double) this.numBits / n
+				* Math.log(2))));
+	}
+
+	/**
+	 * Adds {@code value} to the filter.
+	 * 
+	 * @param value
+	 *            the string to add
+	 */
+	public void add(String value) {
+		long hash1 = BloomFilter.hash(value, 0x9E3779B97F4A7C15L);
+		long hash2 = BloomFilter.hash(value, 0xC2B2AE3D27D4EB4FL) | 1;
+
+		for (int i = 0; i < this.numHashes; i++) {
+			long bit = Long.remainderUnsigned(hash1 + i * hash2, this.numBits);
+			int word = (int) (bit >>> 6);
+			long mask = 1L << bit;
+			long current;
+
+			while (((current = this.bits.get(word)) & mask) == 0
+					&& !this.bits.compareAndSet(word, current, current | mask)) {
+				// Retry, word has been changed concurrently
+			}
+		}
+	}
+
+	/**
+	 * Returns whether {@code value} may have been added to the filter.
+	 * 
+	 * @param value
+	 *            the string to check
+	 * @return {@code false} if {@code value} has definitely not been added,
+	 *         {@code true} if it may have been added
+	 */
+	public boolean mightContain(String value) {
+		long hash1 = BloomFilter.hash(value, 0x9E3779B97F4A7C15L);
+		long hash2 = BloomFilter.hash(value, 0xC2B2AE3D27D4EB4FL) | 1;
+
+		for (int i = 0; i < this.numHashes; i++) {
+			long bit = Long.remainderUnsigned(hash1 + i * hash2, this.numBits);
+
+			if ((this.bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Computes a 64 bit hash of {@code value}.
+	 * 
+	 * @param value
+	 *            the string to hash
+	 * @param seed
+	 *            the seed, leading to independent hashes for different seeds
+	 * @return the hash
+	 */
+	protected static long hash(String value, long seed) {
+		long hash = seed ^ value.length();
+
+		for (int i = 0; i < value.length(); i++) {
+			hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+		}
+
+		// Final mix (from MurmurHash3)
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		hash *= 0xC4CEB9FE1A85EC53L;
+		hash ^= hash >>> 33;
+
+		return hash;
+	}
+}
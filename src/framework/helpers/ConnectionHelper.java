@@ -1,15 +1,22 @@
 package framework.helpers;
 
-import java.io.BufferedReader;
+import framework.http.HttpClient;
+import framework.http.HttpResponse;
+import framework.http.HttpStatusException;
+
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.net.URL;
-import java.net.URLConnection;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
 /**
- * Helper class to read entire web pages' HTML.
+ * Helper class to read entire web pages' HTML. All requests are performed via
+ * the shared {@link framework.http.HttpClient}, so that connections are pooled
+ * and kept alive across calls.
  * 
  * @author Jan Helge Wolf
  *
@@ -18,7 +25,8 @@ public class ConnectionHelper {
 	/**
 	 * Returns the entire source code of the page specified by {@code url}. When
 	 * making the HTTP request, the headers passed in {@code headers} (Map
-	 * linking header name to header content) are added.
+	 * linking header name to header content) are added. The response is
+	 * decoded using the charset specified by the server, defaulting to UTF-8.
 	 * 
 	 * @param url
 	 *            the URL to call
@@ -30,25 +38,8 @@ public class ConnectionHelper {
 	 *             in case of any networking error
 	 */
 	public static String getURLContent(URL url, Map<String, String> headers) throws IOException {
-		URLConnection con = url.openConnection();
-
-		if (headers != null) {
-			for (Map.Entry<String, String> entry : headers.entrySet()) {
-				con.addRequestProperty(entry.getKey(), entry.getValue());
-			}
-		}
-
-		BufferedReader reader = new BufferedReader(new InputStreamReader(con.getInputStream()));
-
-		StringBuilder sb = new StringBuilder();
-		String line;
-
-		while ((line = reader.readLine()) != null) {
-			sb.append(line);
-		}
-
-		reader.close();
-		return sb.toString();
+		HttpResponse response = ConnectionHelper.getResponse(url, headers, false);
+		return response.getText();
 	}
 
 	/**
@@ -95,4 +86,120 @@ public class ConnectionHelper {
 		headers.put(headerName, headerValue);
 		return ConnectionHelper.getURLContent(new URL(url.replaceAll(" ", "%20")), headers);
 	}
+
+	/**
+	 * Fetches the page specified by {@code url} and parses it into a Jsoup
+	 * {@link org.jsoup.nodes.Document}. The charset given in the response
+	 * headers is used to decode the page; if none is given, Jsoup determines
+	 * the charset from the page's meta tags. The URL the page was actually
+	 * obtained from (after following any redirects) is used as the base URI
+	 * of the document, so that relative links can be resolved.
+	 * 
+	 * @param url
+	 *            the URL to call
+	 * @param userAgent
+	 *            the User Agent header to send, or {@code null}
+	 * @return the parsed page
+	 * @throws IOException
+	 *             in case of any networking error or if the server does not
+	 *             answer with a 2xx status code
+	 */
+	public static Document getDocument(String url, String userAgent) throws IOException {
+		return ConnectionHelper.getDocument(url, userAgent, false);
+	}
+
+	/**
+	 * Fetches the page specified by {@code url} and parses it into a Jsoup
+	 * {@link org.jsoup.nodes.Document} as described in
+	 * {@link #getDocument(String, String)}. If {@code hedge} is {@code true},
+	 * the request may be hedged by the HttpClient (see
+	 * {@link framework.http.HttpClient#get(URL, Map, boolean)}), which is
+	 * useful for requests whose latency matters more than the additional load
+	 * caused, e.g. article pages.
+	 * 
+	 * @param url
+	 *            the URL to call
+	 * @param userAgent
+	 *            the User Agent header to send, or {@code null}
+	 * @param hedge
+	 *            whether the request may be hedged
+	 * @return the parsed page
+	 * @throws IOException
+	 *             in case of any networking error or if the server does not
+	 *             answer with a 2xx status code
+	 */
+	public static Document getDocument(String url, String userAgent, boolean hedge)
+			throws IOException {
+		return ConnectionHelper.parseDocument(ConnectionHelper.getPage(url, userAgent, hedge));
+	}
+
+	/**
+	 * Fetches the page specified by {@code url} without parsing it, so that
+	 * callers can decide how to process the raw page. See
+	 * {@link #getDocument(String, String, boolean)} for the parameters.
+	 * 
+	 * @param url
+	 *            the URL to call
+	 * @param userAgent
+	 *            the User Agent header to send, or {@code null}
+	 * @param hedge
+	 *            whether the request may be hedged
+	 * @return the successful response
+	 * @throws IOException
+	 *             in case of any networking error or if the server does not
+	 *             answer with a 2xx status code
+	 */
+	public static HttpResponse getPage(String url, String userAgent, boolean hedge)
+			throws IOException {
+		Map<String, String> headers = new HashMap<String, String>();
+
+		if (userAgent != null) {
+			headers.put("User-Agent", userAgent);
+		}
+
+		return ConnectionHelper.getResponse(new URL(url.replaceAll(" ", "%20")), headers, hedge);
+	}
+
+	/**
+	 * Parses the page contained in {@code response} into a Jsoup
+	 * {@link org.jsoup.nodes.Document} as described in
+	 * {@link #getDocument(String, String)}.
+	 * 
+	 * @param response
+	 *            the response containing the page
+	 * @return the parsed page
+	 * @throws IOException
+	 *             if the page cannot be decoded
+	 */
+	public static Document parseDocument(HttpResponse response) throws IOException {
+		return Jsoup.parse(new ByteArrayInputStream(response.getBody()), response.getCharset(),
+				response.getUrl().toExternalForm());
+	}
+
+	/**
+	 * Performs a GET request via the shared {@link framework.http.HttpClient}
+	 * and checks the status code of the response.
+	 * 
+	 * @param url
+	 *            the URL to call
+	 * @param headers
+	 *            the headers to pass when making the HTTP request, or
+	 *            {@code null}
+	 * @param hedge
+	 *            whether the request may be hedged
+	 * @return the successful response
+	 * @throws IOException
+	 *             in case of any networking error or if the server does not
+	 *             answer with a 2xx status code
+	 */
+	protected static HttpResponse getResponse(URL url, Map<String, String> headers, boolean hedge)
+			throws IOException {
+		HttpResponse response = HttpClient.getInstance().get(url, headers, hedge);
+
+		if (!response.isSuccessful()) {
+			throw new HttpStatusException(response.getStatusCode(), url.toExternalForm());
+		}
+
+		return response;
+	}
 }
@@ -0,0 +1,423 @@
+package framework.helpers;
+
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.time.format.TextStyle;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Helper class to parse and format dates using cached, immutable
+ * {@link java.time.format.DateTimeFormatter}s instead of creating a new
+ * {@link java.text.SimpleDateFormat} for every date.
+ * 
+ * Patterns are given in {@link java.text.SimpleDateFormat} syntax and parsed
+ * the way a lenient SimpleDateFormat parses: case insensitive, accepting both
+ * short and long month and day names, ignoring any text following the date,
+ * and using the default time zone if the text does not specify one. Time zone
+ * names (pattern letter {@code z}) are ambiguous (e.g. "BST" is used for both
+ * British Summer Time and Bangladesh Standard Time); like SimpleDateFormat,
+ * they are resolved preferring the default time zone and the time zones of the
+ * country of the locale (see {@link #PREFERRED_ZONES}). Dates following ISO
+ * 8601 (as found in the
+ * {@code datetime} attributes of {@code time} elements) are parsed by a
+ * hand-written parser without involving any formatter.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class DateHelper {
+	/**
+	 * The compiled patterns, mapped by pattern and locale
+	 */
+	private final static ConcurrentMap<String, CompiledPattern> patterns = new ConcurrentHashMap<String, CompiledPattern>();
+
+	/**
+	 * Matches patterns describing ISO 8601 dates, which can be parsed by
+	 * {@link #parseISO(String, boolean, boolean)}
+	 */
+	private final static Pattern ISO_PATTERN = Pattern
+			.compile("yyyy-MM-dd(('T'| )HH:mm(:ss(\\.S+)?)?)?(X{1,3}|Z{1,3})?");
+
+	/**
+	 * The time zones preferred when resolving ambiguous time zone names, mapped
+	 * by the country of the locale
+	 */
+	private final static Map<String, Set<ZoneId>> PREFERRED_ZONES = new HashMap<String, Set<ZoneId>>();
+
+	static {
+		PREFERRED_ZONES.put("GB", Collections.singleton(ZoneId.of("Europe/London")));
+		PREFERRED_ZONES.put("IE", Collections.singleton(ZoneId.of("Europe/Dublin")));
+		PREFERRED_ZONES.put("DE", Collections.singleton(ZoneId.of("Europe/Berlin")));
+		PREFERRED_ZONES.put("AT", Collections.singleton(ZoneId.of("Europe/Vienna")));
+		PREFERRED_ZONES.put("CH", Collections.singleton(ZoneId.of("Europe/Zurich")));
+		PREFERRED_ZONES.put("US", Collections.singleton(ZoneId.of("America/New_York")));
+	}
+
+	private DateHelper() {
+	}
+
+	/**
+	 * Parses {@code text} according to {@code pattern} and {@code locale}.
+	 * If {@code pattern} describes an ISO 8601 date, the fast path
+	 * {@link #parseISO(String)} is tried first.
+	 * 
+	 * @param text
+	 *            the text to parse
+	 * @param pattern
+	 *            the pattern in {@link java.text.SimpleDateFormat} syntax
+	 * @param locale
+	 *            the locale used for month and day names
+	 * @return the parsed date
+	 * @throws ParseException
+	 *             if {@code text} cannot be parsed
+	 */
+	public static ZonedDateTime parse(String text, String pattern, Locale locale)
+			throws ParseException {
+		CompiledPattern compiled = DateHelper.getPattern(pattern, locale);
+
+		if (compiled.iso) {
+			ZonedDateTime result = DateHelper.parseISO(text, compiled.timed, compiled.zoned);
+
+			if (result != null) {
+				return result;
+			}
+		}
+
+		try {
+			TemporalAccessor parsed = compiled.formatter.parse(text, new ParsePosition(0));
+			LocalDate date = parsed.query(TemporalQueries.localDate());
+			LocalTime time = parsed.query(TemporalQueries.localTime());
+			ZoneId zone = parsed.query(TemporalQueries.zone());
+
+			if (date == null) {
+				throw new ParseException("Incomplete date: \"" + text + "\"", 0);
+			}
+
+			return ZonedDateTime.of(date, (time == null ? LocalTime.MIDNIGHT : time),
+					(zone == null ? ZoneId.systemDefault() : zone));
+		}
+		catch (DateTimeParseException e) {
+			throw new ParseException("Unparseable date: \"" + text + "\"", e.getErrorIndex());
+		}
+		catch (DateTimeException e) {
+			throw new ParseException("Unparseable date: \"" + text + "\"", 0);
+		}
+	}
+
+	/**
+	 * Parses {@code text} as an ISO 8601 date (e.g. {@code 2015-03-02},
+	 * {@code 2015-03-02T10:15:30+01:00} or {@code 2015-03-02 10:15:30.5Z}).
+	 * Dates without offset are interpreted in the default time zone.
+	 * 
+	 * @param text
+	 *            the text to parse
+	 * @return the parsed date
+	 * @throws ParseException
+	 *             if {@code text} does not start with an ISO 8601 date
+	 */
+	public static ZonedDateTime parseISO(String text) throws ParseException {
+		ZonedDateTime result = DateHelper.parseISO(text, true, true);
+
+		if (result == null) {
+			throw new ParseException("Unparseable ISO 8601 date: \"" + text + "\"", 0);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Parses {@code text} as an ISO 8601 date, ignoring any text following the
+	 * date.
+	 * 
+	 * @param text
+	 *            the text to parse
+	 * @param timed
+	 *            whether a time following the date is to be used; if
+	 *            {@code false}, the date is returned at midnight
+	 * @param zoned
+	 *            whether an offset following the time is to be used; if
+	 *            {@code false}, the default time zone is always used
+	 * @return the parsed date, or {@code null} if {@code text} does not start
+	 *         with a valid ISO 8601 date
+	 */
+	protected static ZonedDateTime parseISO(String text, boolean timed, boolean zoned) {
+		int length = text.length();
+
+		if (length < 10 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+			return null;
+		}
+
+		int year = DateHelper.digits(text, 0, 4);
+		int month = DateHelper.digits(text, 5, 2);
+		int day = DateHelper.digits(text, 8, 2);
+		int hour = 0, minute = 0, second = 0, nano = 0;
+		int i = 10;
+
+		if (year < 0 || month < 0 || day < 0) {
+			return null;
+		}
+
+		// Time
+		if (timed && i + 6 <= length && (text.charAt(i) == 'T' || text.charAt(i) == ' ')
+				&& text.charAt(i + 3) == ':') {
+			hour = DateHelper.digits(text, i + 1, 2);
+			minute = DateHelper.digits(text, i + 4, 2);
+			i += 6;
+
+			if (hour < 0 || minute < 0) {
+				return null;
+			}
+
+			if (i + 3 <= length && text.charAt(i) == ':') {
+				second = DateHelper.digits(text, i + 1, 2);
+				i += 3;
+
+				if (second < 0) {
+					return null;
+				}
+
+				// Fraction of second, digits beyond nanoseconds are ignored
+				if (i < length && (text.charAt(i) == '.' || text.charAt(i) == ',')) {
+					int start = ++i;
+					int scale = 100000000;
+
+					for (; i < length && DateHelper.isDigit(text.charAt(i)); i++) {
+						nano += (text.charAt(i) - '0') * scale;
+						scale /= 10;
+					}
+
+					if (i == start) {
+						return null;
+					}
+				}
+			}
+		}
+
+		try {
+			ZoneId zone = ZoneId.systemDefault();
+
+			// Offset
+			if (zoned && i < length) {
+				char c = text.charAt(i);
+
+				if (c == 'Z' || c == 'z') {
+					zone = ZoneOffset.UTC;
+				}
+				else if (c == '+' || c == '-') {
+					int offsetHours = DateHelper.digits(text, i + 1, 2);
+					int j = i + 3;
+					j += (j < length && text.charAt(j) == ':' ? 1 : 0);
+					int offsetMinutes = Math.max(0, DateHelper.digits(text, j, 2));
+
+					if (offsetHours < 0) {
+						return null;
+					}
+
+					zone = (c == '+' ? ZoneOffset.ofHoursMinutes(offsetHours, offsetMinutes)
+							: ZoneOffset.ofHoursMinutes(-offsetHours, -offsetMinutes));
+				}
+			}
+
+			return ZonedDateTime.of(LocalDateTime.of(year, month, day, hour, minute, second,
+					nano), zone);
+		}
+		catch (DateTimeException e) {
+			// Invalid field values, leave to lenient formatter
+			return null;
+		}
+	}
+
+	/**
+	 * Formats {@code date} in the default time zone according to
+	 * {@code pattern}, using the default locale.
+	 * 
+	 * @param date
+	 *            the date to format
+	 * @param pattern
+	 *            the pattern in {@link java.text.SimpleDateFormat} syntax
+	 * @return the formatted date
+	 */
+	public static String format(Date date, String pattern) {
+		return DateHelper.format(date, pattern, Locale.getDefault(Locale.Category.FORMAT));
+	}
+
+	/**
+	 * Formats {@code date} in the default time zone according to
+	 * {@code pattern} and {@code locale}.
+	 * 
+	 * @param date
+	 *            the date to format
+	 * @param pattern
+	 *            the pattern in {@link java.text.SimpleDateFormat} syntax
+	 * @param locale
+	 *            the locale used for month and day names
+	 * @return the formatted date
+	 */
+	public static String format(Date date, String pattern, Locale locale) {
+		return DateHelper.getPattern(pattern, locale).formatter.format(ZonedDateTime.ofInstant(
+				date.toInstant(), ZoneId.systemDefault()));
+	}
+
+	/**
+	 * Converts {@code dateTime} to a {@link java.util.Date}.
+	 * 
+	 * @param dateTime
+	 *            the date to convert
+	 * @return the date as a Date object
+	 */
+	public static Date toDate(ZonedDateTime dateTime) {
+		return Date.from(dateTime.toInstant());
+	}
+
+	/**
+	 * Returns the compiled form of {@code pattern} for {@code locale},
+	 * compiling it on first use.
+	 * 
+	 * @param pattern
+	 *            the pattern in {@link java.text.SimpleDateFormat} syntax
+	 * @param locale
+	 *            the locale
+	 * @return the compiled pattern
+	 */
+	protected static CompiledPattern getPattern(String pattern, Locale locale) {
+		return patterns.computeIfAbsent(pattern + '\u0000' + locale.toLanguageTag(),
+				key -> new CompiledPattern(pattern, locale));
+	}
+
+	/**
+	 * Returns the value of the {@code count} decimal digits at {@code start}.
+	 * 
+	 * @param text
+	 *            the text
+	 * @param start
+	 *            the position of the first digit
+	 * @param count
+	 *            the number of digits
+	 * @return the value, or -1 if {@code text} does not contain {@code count}
+	 *         digits at {@code start}
+	 */
+	protected static int digits(String text, int start, int count) {
+		if (start + count > text.length()) {
+			return -1;
+		}
+
+		int value = 0;
+
+		for (int i = start; i < start + count; i++) {
+			char c = text.charAt(i);
+
+			if (!DateHelper.isDigit(c)) {
+				return -1;
+			}
+
+			value = value * 10 + (c - '0');
+		}
+
+		return value;
+	}
+
+	/**
+	 * @param c
+	 *            the character to check
+	 * @return whether {@code c} is an ASCII digit
+	 */
+	protected static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * A pattern compiled into a formatter, together with the information
+	 * whether the ISO 8601 fast path can be used
+	 */
+	protected static class CompiledPattern {
+		/**
+		 * The formatter, parsing leniently and case insensitively
+		 */
+		protected final DateTimeFormatter formatter;
+
+		/**
+		 * Whether the pattern describes an ISO 8601 date
+		 */
+		protected final boolean iso;
+
+		/**
+		 * Whether the pattern contains a time
+		 */
+		protected final boolean timed;
+
+		/**
+		 * Whether the pattern contains an offset
+		 */
+		protected final boolean zoned;
+
+		/**
+		 * Compiles {@code pattern} for {@code locale}.
+		 * 
+		 * @param pattern
+		 *            the pattern in {@link java.text.SimpleDateFormat} syntax
+		 * @param locale
+		 *            the locale
+		 */
+		protected CompiledPattern(String pattern, Locale locale) {
+			DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder()
+					.parseCaseInsensitive().parseLenient();
+			Set<ZoneId> preferredZones = new HashSet<ZoneId>();
+			boolean quoted = false;
+			int start = 0;
+
+			preferredZones.add(ZoneId.systemDefault());
+			preferredZones.addAll(PREFERRED_ZONES.getOrDefault(locale.getCountry(),
+					Collections.<ZoneId> emptySet()));
+
+			// Replace time zone names by zone text resolved with preferred zones
+			for (int i = 0; i < pattern.length(); i++) {
+				char c = pattern.charAt(i);
+
+				if (c == '\'') {
+					quoted = !quoted;
+				}
+				else if (c == 'z' && !quoted) {
+					int end = i;
+
+					while (end < pattern.length() && pattern.charAt(end) == 'z') {
+						end++;
+					}
+
+					builder.appendPattern(pattern.substring(start, i));
+					builder.appendZoneText((end - i >= 4 ? TextStyle.FULL : TextStyle.SHORT),
+							preferredZones);
+					start = end;
+					i = end - 1;
+				}
+			}
+
+			this.formatter = builder.appendPattern(pattern.substring(start)).toFormatter(locale)
+					.withResolverStyle(ResolverStyle.LENIENT);
+			this.iso = ISO_PATTERN.matcher(pattern).matches();
+			this.timed = (pattern.indexOf('H') != -1);
+			this.zoned = (pattern.indexOf('X') != -1 || pattern.indexOf('Z') != -1);
+		}
+	}
+}
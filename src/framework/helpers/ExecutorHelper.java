@@ -0,0 +1,99 @@
+package framework.helpers;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Helper class to create the ExecutorServices used to perform network
+ * operations concurrently. Two modes are supported: "platform" creates a fixed
+ * pool of platform threads, "virtual" runs every task on its own virtual
+ * thread. As the framework is compiled for Java 8, virtual threads are looked
+ * up reflectively and are only used when running on Java 21 or later; on older
+ * JVMs, the "virtual" mode falls back to a fixed pool of platform threads.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class ExecutorHelper {
+	/**
+	 * Name of the mode running every task on its own virtual thread
+	 */
+	public final static String MODE_VIRTUAL = "virtual";
+
+	/**
+	 * Name of the mode running all tasks on a fixed pool of platform threads
+	 */
+	public final static String MODE_PLATFORM = "platform";
+
+	/**
+	 * {@code Executors.newVirtualThreadPerTaskExecutor()}, or {@code null} if
+	 * the running JVM does not support virtual threads
+	 */
+	private final static Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutorFactory();
+
+	private ExecutorHelper() {
+	}
+
+	/**
+	 * @return whether the running JVM supports virtual threads
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+	}
+
+	/**
+	 * Returns whether an ExecutorService created by
+	 * {@link #newExecutor(String, int)} for the given {@code mode} will run its
+	 * tasks on virtual threads.
+	 * 
+	 * @param mode
+	 *            the executor mode
+	 * @return whether tasks will be run on virtual threads
+	 */
+	public static boolean usesVirtualThreads(String mode) {
+		return MODE_VIRTUAL.equalsIgnoreCase(mode) && isVirtualThreadSupported();
+	}
+
+	/**
+	 * Creates a new ExecutorService for the given {@code mode}. For the
+	 * "virtual" mode, an executor starting a new virtual thread for every task
+	 * is returned if supported by the running JVM. In all other cases, a fixed
+	 * pool of {@code numThreads} platform threads is returned.
+	 * 
+	 * @param mode
+	 *            the executor mode, either "platform" or "virtual"
+	 * @param numThreads
+	 *            the number of threads of a fixed thread pool
+	 * @return the new ExecutorService
+	 */
+	public static ExecutorService newExecutor(String mode, int numThreads) {
+		if (MODE_VIRTUAL.equalsIgnoreCase(mode)) {
+			if (isVirtualThreadSupported()) {
+				try {
+					return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+				}
+				catch (ReflectiveOperationException e) {
+					LoggerGenerator.getLogger().warning(
+							"Unable to create virtual thread executor: " + e.toString());
+				}
+			}
+			else {
+				LoggerGenerator.getLogger().warning(
+						"Virtual threads are not supported by this JVM, using " + numThreads
+								+ " platform threads instead");
+			}
+		}
+
+		return Executors.newFixedThreadPool(numThreads);
+	}
+
+	private static Method findVirtualThreadExecutorFactory() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		}
+		catch (NoSuchMethodException | SecurityException e) {
+			return null;
+		}
+	}
+}
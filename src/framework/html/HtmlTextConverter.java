@@ -0,0 +1,226 @@
+package framework.html;
+
+import framework.html.HtmlTokenizer.TokenType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jsoup.parser.Parser;
+
+/**
+ * Converts HTML to plain text without building a DOM. Intended for articles
+ * whose HTML is delivered by an API (e.g. the body of a
+ * {@code GuardianArticle}), where parsing the HTML into a Jsoup
+ * {@link org.jsoup.nodes.Document} only to call
+ * {@link org.jsoup.nodes.Element#text()} on it would be wasted effort.
+ * 
+ * The output follows the whitespace normalization of Jsoup's {@code text()}:
+ * runs of whitespace are collapsed into a single space, a space separates the
+ * text preceding a block element or {@code br} from the text inside it, text
+ * directly inside (or one level below) {@code pre} and {@code textarea}
+ * elements is kept as is, the contents of {@code script} and {@code style}
+ * elements as well as comments are omitted, and the result is trimmed.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class HtmlTextConverter {
+	/**
+	 * Elements Jsoup considers block elements
+	 */
+	protected final static Set<String> BLOCK_ELEMENTS = new HashSet<String>(Arrays.asList("html",
+			"head", "body", "frameset", "script", "noscript", "style", "meta", "link", "title",
+			"frame", "noframes", "section", "nav", "aside", "hgroup", "header", "footer", "p",
+			"h1", "h2", "h3", "h4", "h5", "h6", "ul", "ol", "pre", "div", "blockquote", "hr",
+			"address", "figure", "figcaption", "form", "fieldset", "ins", "del", "s", "dl", "dt",
+			"dd", "li", "table", "caption", "thead", "tfoot", "tbody", "colgroup", "col", "tr",
+			"th", "td", "video", "audio", "canvas", "details", "menu", "plaintext"));
+
+	/**
+	 * Elements whose text is not normalized
+	 */
+	protected final static Set<String> PRESERVE_WHITESPACE = new HashSet<String>(Arrays.asList(
+			"pre", "plaintext", "title", "textarea"));
+
+	/**
+	 * Elements without content
+	 */
+	protected final static Set<String> VOID_ELEMENTS = new HashSet<String>(
+			StreamingExtractor.VOID_ELEMENTS);
+
+	private HtmlTextConverter() {
+	}
+
+	/**
+	 * Returns the text contained in {@code html}, normalized as described
+	 * above.
+	 * 
+	 * @param html
+	 *            the HTML to convert
+	 * @return the text
+	 */
+	public static String toText(String html) {
+		HtmlTokenizer tokenizer = new HtmlTokenizer(html, false);
+		StringBuilder text = new StringBuilder(html.length() / 2);
+		List<String> openElements = new ArrayList<String>();
+		TokenType type;
+
+		while ((type = tokenizer.next()) != TokenType.EOF) {
+			if (type == TokenType.START_TAG) {
+				String name = tokenizer.getTagName();
+				HtmlTextConverter.appendSeparator(text, name);
+
+				if (!tokenizer.isSelfClosing() && !VOID_ELEMENTS.contains(name)) {
+					openElements.add(name);
+				}
+			}
+			else if (type == TokenType.END_TAG) {
+				String name = tokenizer.getTagName();
+				int index = openElements.lastIndexOf(name);
+
+				if (index != -1) {
+					openElements.subList(index, openElements.size()).clear();
+				}
+				else if (name.equals("br") || name.equals("p")) {
+					// Stray end tags Jsoup turns into elements
+					HtmlTextConverter.appendSeparator(text, name);
+				}
+			}
+			else if (type == TokenType.TEXT) {
+				String parent = HtmlTextConverter.getOpenElement(openElements, 1);
+
+				// Contents of script and style elements are no text
+				if (parent != null && (parent.equals("script") || parent.equals("style"))) {
+					continue;
+				}
+
+				String source = html;
+				int start = tokenizer.getStart();
+				int end = tokenizer.getEnd();
+
+				// Decode character references, except in raw text elements
+				if (HtmlTextConverter.contains(html, '&', start, end)
+						&& !(parent != null && HtmlTextConverter.isRawText(parent))) {
+					source = Parser.unescapeEntities(tokenizer.getSource(), false);
+					start = 0;
+					end = source.length();
+				}
+
+				if (PRESERVE_WHITESPACE.contains(parent)
+						|| PRESERVE_WHITESPACE.contains(HtmlTextConverter.getOpenElement(
+								openElements, 2))) {
+					text.append(source, start, end);
+				}
+				else {
+					HtmlTextConverter.appendNormalized(text, source, start, end);
+				}
+			}
+		}
+
+		return text.toString().trim();
+	}
+
+	/**
+	 * Appends a space to {@code text} if the element {@code name} separates
+	 * text and {@code text} does not already end with a space.
+	 * 
+	 * @param text
+	 *            the text extracted so far
+	 * @param name
+	 *            the name of the element starting
+	 */
+	protected static void appendSeparator(StringBuilder text, String name) {
+		if ((BLOCK_ELEMENTS.contains(name) || name.equals("br")) && text.length() > 0
+				&& text.charAt(text.length() - 1) != ' ') {
+			text.append(' ');
+		}
+	}
+
+	/**
+	 * Appends the characters of {@code source} from {@code start} to
+	 * {@code end} to {@code text}, collapsing each run of whitespace into a
+	 * single space and dropping leading whitespace if {@code text} already ends
+	 * with a space.
+	 * 
+	 * @param text
+	 *            the text extracted so far
+	 * @param source
+	 *            the source to append
+	 * @param start
+	 *            the start position in {@code source}
+	 * @param end
+	 *            the end position (exclusive) in {@code source}
+	 */
+	protected static void appendNormalized(StringBuilder text, String source, int start, int end) {
+		boolean lastWasWhite = (text.length() > 0 && text.charAt(text.length() - 1) == ' ');
+
+		for (int i = start; i < end; i++) {
+			char c = source.charAt(i);
+
+			if (c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r') {
+				if (!lastWasWhite) {
+					text.append(' ');
+					lastWasWhite = true;
+				}
+			}
+			else {
+				text.append(c);
+				lastWasWhite = false;
+			}
+		}
+	}
+
+	/**
+	 * @param source
+	 *            the source to search
+	 * @param c
+	 *            the character to search for
+	 * @param start
+	 *            the start position in {@code source}
+	 * @param end
+	 *            the end position (exclusive) in {@code source}
+	 * @return whether {@code c} occurs between {@code start} and {@code end}
+	 */
+	protected static boolean contains(String source, char c, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (source.charAt(i) == c) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * @param openElements
+	 *            the names of the open elements
+	 * @param depth
+	 *            1 for the innermost open element, 2 for its parent etc.
+	 * @return the name of the open element, or {@code null}
+	 */
+	protected static String getOpenElement(List<String> openElements, int depth) {
+		int index = openElements.size() - depth;
+		return (index >= 0 ? openElements.get(index) : null);
+	}
+
+	/**
+	 * @param name
+	 *            the name of an element
+	 * @return whether character references in the element's content are not
+	 *         decoded
+	 */
+	protected static boolean isRawText(String name) {
+		switch (name) {
+		case "xmp":
+		case "iframe":
+		case "noembed":
+		case "noframes":
+			return true;
+		default:
+			return false;
+		}
+	}
+}
@@ -0,0 +1,463 @@
+package framework.html;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jsoup.parser.Parser;
+
+/**
+ * Lightweight HTML tokenizer splitting an HTML source into start tags, end
+ * tags, text and other markup (comments, doctype declarations etc.) without
+ * building any tree. Used by {@link StreamingExtractor} to scan article pages
+ * in a single pass and by {@link HtmlTextConverter} to extract text.
+ * 
+ * The tokenizer is lenient in the same way browsers are: a {@code <} that does
+ * not start a tag is treated as text, unterminated constructs end at the end of
+ * the source, and the content of raw text elements (e.g. {@code script} and
+ * {@code style}) is returned as a single text token. Every token remembers its
+ * position in the source, so that it can be copied verbatim.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class HtmlTokenizer {
+	/**
+	 * The types of tokens returned by {@link HtmlTokenizer#next()}
+	 */
+	public enum TokenType {
+		START_TAG, END_TAG, TEXT, OTHER, EOF
+	}
+
+	/**
+	 * The source being tokenized
+	 */
+	protected final String source;
+
+	/**
+	 * Whether the attributes of start tags are parsed
+	 */
+	protected final boolean parseAttributes;
+
+	/**
+	 * The position of the next token in {@link #source}
+	 */
+	protected int position;
+
+	/**
+	 * The name of the raw text element whose content follows, or {@code null}
+	 */
+	protected String rawTextElement;
+
+	/**
+	 * The type of the current token
+	 */
+	protected TokenType type;
+
+	/**
+	 * The start position of the current token in {@link #source}
+	 */
+	protected int tokenStart;
+
+	/**
+	 * The end position (exclusive) of the current token in {@link #source}
+	 */
+	protected int tokenEnd;
+
+	/**
+	 * The lower case name of the current tag, if the current token is a tag
+	 */
+	protected String tagName;
+
+	/**
+	 * The attributes of the current start tag, mapping lower case attribute
+	 * names to their (unescaped) values
+	 */
+	protected Map<String, String> attributes;
+
+	/**
+	 * Whether the current start tag is self-closing (e.g. {@code <br/>})
+	 */
+	protected boolean selfClosing;
+
+	/**
+	 * Constructs an HtmlTokenizer for the given {@code source}.
+	 * 
+	 * @param source
+	 *            the HTML source to tokenize
+	 */
+	public HtmlTokenizer(String source) {
+		this(source, true);
+	}
+
+	/**
+	 * Constructs an HtmlTokenizer for the given {@code source}, optionally
+	 * skipping the (comparatively costly) parsing of attributes.
+	 * 
+	 * @param source
+	 *            the HTML source to tokenize
+	 * @param parseAttributes
+	 *            whether the attributes of start tags are parsed; if
+	 *            {@code false}, {@link #getAttributes()} always returns an
+	 *            empty map
+	 */
+	public HtmlTokenizer(String source, boolean parseAttributes) {
+		this.source = source;
+		this.parseAttributes = parseAttributes;
+		this.position = 0;
+	}
+
+	/**
+	 * Reads the next token. Its properties can then be obtained using the
+	 * getters of this class.
+	 * 
+	 * @return the type of the token read
+	 */
+	public TokenType next() {
+		this.tokenStart = this.position;
+		this.tagName = null;
+		this.attributes = null;
+		this.selfClosing = false;
+
+		if (this.position >= this.source.length()) {
+			return this.finish(TokenType.EOF, this.position);
+		}
+
+		if (this.rawTextElement != null) {
+			int end = this.findRawTextEnd(this.rawTextElement);
+			this.rawTextElement = null;
+
+			if (end > this.position) {
+				return this.finish(TokenType.TEXT, end);
+			}
+		}
+
+		char c = this.source.charAt(this.position);
+
+		if (c != '<' || this.position + 1 >= this.source.length()) {
+			return this.readText();
+		}
+
+		char next = this.source.charAt(this.position + 1);
+
+		if (this.isLetter(next)) {
+			return this.readStartTag();
+		}
+		else if (next == '/') {
+			if (this.position + 2 < this.source.length()
+					&& this.isLetter(this.source.charAt(this.position + 2))) {
+				return this.readEndTag();
+			}
+
+			return this.finish(TokenType.OTHER, this.indexAfter(">", this.position + 2));
+		}
+		else if (next == '!') {
+			if (this.source.startsWith("<!--", this.position)) {
+				return this.finish(TokenType.OTHER, this.indexAfter("-->", this.position + 4));
+			}
+
+			if (this.source.startsWith("<![CDATA[", this.position)) {
+				return this.finish(TokenType.OTHER, this.indexAfter("]]>", this.position + 9));
+			}
+
+			return this.finish(TokenType.OTHER, this.indexAfter(">", this.position + 2));
+		}
+		else if (next == '?') {
+			return this.finish(TokenType.OTHER, this.indexAfter(">", this.position + 2));
+		}
+
+		return this.readText();
+	}
+
+	/**
+	 * Reads a text token up to the next character that may start markup.
+	 * 
+	 * @return the token type
+	 */
+	protected TokenType readText() {
+		int end = this.source.indexOf('<', this.position + 1);
+		return this.finish(TokenType.TEXT, (end == -1 ? this.source.length() : end));
+	}
+
+	/**
+	 * Reads a start tag including its attributes.
+	 * 
+	 * @return the token type
+	 */
+	protected TokenType readStartTag() {
+		int i = this.position + 1;
+		int length = this.source.length();
+		int nameStart = i;
+
+		while (i < length && !this.isTagNameEnd(this.source.charAt(i))) {
+			i++;
+		}
+
+		this.tagName = this.source.substring(nameStart, i).toLowerCase();
+		this.attributes = (this.parseAttributes ? new LinkedHashMap<String, String>()
+				: Collections.<String, String> emptyMap());
+
+		while (i < length) {
+			char c = this.source.charAt(i);
+
+			if (c == '>') {
+				i++;
+				break;
+			}
+
+			if (Character.isWhitespace(c)) {
+				i++;
+				continue;
+			}
+
+			if (c == '/') {
+				i++;
+				this.selfClosing = (i < length && this.source.charAt(i) == '>');
+				continue;
+			}
+
+			// Attribute name
+			int attributeStart = i;
+
+			do {
+				i++;
+			} while (i < length && !this.isAttributeNameEnd(this.source.charAt(i)));
+
+			int attributeEnd = i;
+			int valueStart = i;
+			int valueEnd = i;
+			i = this.skipWhitespace(i);
+
+			if (i < length && this.source.charAt(i) == '=') {
+				i = this.skipWhitespace(i + 1);
+
+				if (i < length && (this.source.charAt(i) == '"' || this.source.charAt(i) == '\'')) {
+					char quote = this.source.charAt(i);
+					int end = this.source.indexOf(quote, i + 1);
+					valueStart = i + 1;
+					valueEnd = (end == -1 ? length : end);
+					i = Math.min(length, valueEnd + 1);
+				}
+				else {
+					valueStart = i;
+
+					while (i < length && !Character.isWhitespace(this.source.charAt(i))
+							&& this.source.charAt(i) != '>') {
+						i++;
+					}
+
+					valueEnd = i;
+				}
+			}
+
+			if (!this.parseAttributes) {
+				continue;
+			}
+
+			String name = this.source.substring(attributeStart, attributeEnd).toLowerCase();
+			String value = this.source.substring(valueStart, valueEnd);
+
+			// As in browsers, the first occurrence of an attribute wins
+			if (!this.attributes.containsKey(name)) {
+				this.attributes.put(name, (value.indexOf('&') == -1 ? value : Parser
+						.unescapeEntities(value, true)));
+			}
+		}
+
+		if (!this.selfClosing && this.isRawTextElement(this.tagName)) {
+			this.rawTextElement = this.tagName;
+		}
+
+		return this.finish(TokenType.START_TAG, i);
+	}
+
+	/**
+	 * Reads an end tag, ignoring any attributes.
+	 * 
+	 * @return the token type
+	 */
+	protected TokenType readEndTag() {
+		int i = this.position + 2;
+		int nameStart = i;
+
+		while (i < this.source.length() && !this.isTagNameEnd(this.source.charAt(i))) {
+			i++;
+		}
+
+		this.tagName = this.source.substring(nameStart, i).toLowerCase();
+		return this.finish(TokenType.END_TAG, this.indexAfter(">", i));
+	}
+
+	/**
+	 * Returns the position of the end tag closing the raw text element
+	 * {@code name}, or the end of the source if there is none.
+	 * 
+	 * @param name
+	 *            the name of the raw text element
+	 * @return the position of the closing end tag
+	 */
+	protected int findRawTextEnd(String name) {
+		int i = this.position;
+
+		while ((i = this.source.indexOf("</", i)) != -1) {
+			int nameEnd = i + 2 + name.length();
+
+			if (this.source.regionMatches(true, i + 2, name, 0, name.length())
+					&& (nameEnd >= this.source.length() || this.isTagNameEnd(this.source
+							.charAt(nameEnd)))) {
+				return i;
+			}
+
+			i += 2;
+		}
+
+		return this.source.length();
+	}
+
+	/**
+	 * Sets the type and end of the current token and advances the position.
+	 * 
+	 * @param tokenType
+	 *            the type of the token
+	 * @param end
+	 *            the end position (exclusive) of the token
+	 * @return the token type
+	 */
+	protected TokenType finish(TokenType tokenType, int end) {
+		this.type = tokenType;
+		this.tokenEnd = end;
+		this.position = end;
+		return tokenType;
+	}
+
+	/**
+	 * Returns the position after the next occurrence of {@code str} starting
+	 * at {@code from}, or the end of the source if {@code str} does not occur.
+	 * 
+	 * @param str
+	 *            the string to search
+	 * @param from
+	 *            the position to start searching at
+	 * @return the position after {@code str}
+	 */
+	protected int indexAfter(String str, int from) {
+		int index = this.source.indexOf(str, Math.min(from, this.source.length()));
+		return (index == -1 ? this.source.length() : index + str.length());
+	}
+
+	/**
+	 * Returns the position of the first non-whitespace character at or after
+	 * {@code i}.
+	 * 
+	 * @param i
+	 *            the position to start at
+	 * @return the position of the first non-whitespace character
+	 */
+	protected int skipWhitespace(int i) {
+		while (i < this.source.length() && Character.isWhitespace(this.source.charAt(i))) {
+			i++;
+		}
+
+		return i;
+	}
+
+	/**
+	 * @param c
+	 *            the character to check
+	 * @return whether {@code c} is an ASCII letter
+	 */
+	protected boolean isLetter(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
+	/**
+	 * @param c
+	 *            the character to check
+	 * @return whether {@code c} ends a tag name
+	 */
+	protected boolean isTagNameEnd(char c) {
+		return Character.isWhitespace(c) || c == '/' || c == '>';
+	}
+
+	/**
+	 * @param c
+	 *            the character to check
+	 * @return whether {@code c} ends an attribute name
+	 */
+	protected boolean isAttributeNameEnd(char c) {
+		return Character.isWhitespace(c) || c == '/' || c == '>' || c == '=';
+	}
+
+	/**
+	 * Returns whether the content of the element {@code name} is raw text,
+	 * i.e. not parsed as markup.
+	 * 
+	 * @param name
+	 *            the lower case element name
+	 * @return whether the element contains raw text
+	 */
+	protected boolean isRawTextElement(String name) {
+		switch (name) {
+		case "script":
+		case "style":
+		case "textarea":
+		case "title":
+		case "xmp":
+		case "iframe":
+		case "noembed":
+		case "noframes":
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * @return the type of the current token
+	 */
+	public TokenType getType() {
+		return this.type;
+	}
+
+	/**
+	 * @return the start position of the current token in the source
+	 */
+	public int getStart() {
+		return this.tokenStart;
+	}
+
+	/**
+	 * @return the end position (exclusive) of the current token in the source
+	 */
+	public int getEnd() {
+		return this.tokenEnd;
+	}
+
+	/**
+	 * @return the source text of the current token
+	 */
+	public String getSource() {
+		return this.source.substring(this.tokenStart, this.tokenEnd);
+	}
+
+	/**
+	 * @return the lower case name of the current tag
+	 */
+	public String getTagName() {
+		return this.tagName;
+	}
+
+	/**
+	 * @return the attributes of the current start tag
+	 */
+	public Map<String, String> getAttributes() {
+		return this.attributes;
+	}
+
+	/**
+	 * @return whether the current start tag is self-closing
+	 */
+	public boolean isSelfClosing() {
+		return this.selfClosing;
+	}
+}
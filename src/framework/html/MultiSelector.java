@@ -0,0 +1,78 @@
+package framework.html;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.jsoup.select.Evaluator;
+
+/**
+ * Evaluates several selectors on a document in a single traversal. Where
+ * {@code n} calls of {@link Element#select(String)} traverse the entire tree
+ * {@code n} times, {@link #select(Element, List)} visits every element once
+ * and tests it against all selectors.
+ * 
+ * The elements matched by each selector are returned in document order and
+ * are identical to those {@link Element#select(String)} returns for the same
+ * selector.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class MultiSelector {
+	/**
+	 * Returns the elements below (and including) {@code root} matched by each
+	 * of the {@code evaluators}.
+	 * 
+	 * @param root
+	 *            the element to start the traversal at, usually the document
+	 * @param evaluators
+	 *            the compiled selectors (see
+	 *            {@link org.jsoup.select.QueryParser#parse(String)}); entries
+	 *            may be {@code null} to skip a selector
+	 * @return a list containing, for each evaluator at the same index, the
+	 *         matched elements in document order (empty for {@code null}
+	 *         evaluators)
+	 */
+	public static List<Elements> select(Element root, List<Evaluator> evaluators) {
+		List<Elements> results = new ArrayList<Elements>(evaluators.size());
+		boolean any = false;
+
+		for (Evaluator evaluator : evaluators) {
+			results.add(new Elements());
+			any |= (evaluator != null);
+		}
+
+		if (!any) {
+			return results;
+		}
+
+		// Iterative pre-order traversal, so that deep documents cannot
+		// overflow the stack
+		Deque<Element> stack = new ArrayDeque<Element>();
+		stack.push(root);
+
+		while (!stack.isEmpty()) {
+			Element element = stack.pop();
+
+			for (int i = 0; i < evaluators.size(); i++) {
+				Evaluator evaluator = evaluators.get(i);
+
+				if (evaluator != null && evaluator.matches(root, element)) {
+					results.get(i).add(element);
+				}
+			}
+
+			Elements children = element.children();
+
+			for (int i = children.size() - 1; i >= 0; i--) {
+				stack.push(children.get(i));
+			}
+		}
+
+		return results;
+	}
+}
@@ -0,0 +1,86 @@
+package framework.html;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Collector;
+import org.jsoup.select.Elements;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+
+/**
+ * Cache of compiled Jsoup selectors. {@link Element#select(String)} parses its
+ * selector on every call; the selectors used by articles and scrapers are
+ * constant per class though, so that they can be parsed once and the compiled
+ * {@link org.jsoup.select.Evaluator} reused for every document and every
+ * search result element.
+ * 
+ * Compiled selectors are immutable and can be shared between threads.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class SelectorCache {
+	/**
+	 * The maximum number of selectors cached, protecting against callers
+	 * generating selectors dynamically
+	 */
+	protected final static int MAX_SIZE = 1024;
+
+	/**
+	 * The compiled selectors, mapped by query
+	 */
+	private final static ConcurrentMap<String, Evaluator> evaluators = new ConcurrentHashMap<String, Evaluator>();
+
+	/**
+	 * Returns the compiled form of {@code query}, parsing it on first use.
+	 * 
+	 * @param query
+	 *            the selector
+	 * @return the compiled selector
+	 * @throws org.jsoup.select.Selector.SelectorParseException
+	 *             if {@code query} is not a valid selector
+	 */
+	public static Evaluator get(String query) {
+		Evaluator evaluator = evaluators.get(query);
+
+		if (evaluator == null) {
+			evaluator = QueryParser.parse(query);
+
+			if (evaluators.size() < MAX_SIZE) {
+				evaluators.putIfAbsent(query, evaluator);
+			}
+		}
+
+		return evaluator;
+	}
+
+	/**
+	 * Equivalent to {@code root.select(query)}, using the cached compiled form
+	 * of {@code query}.
+	 * 
+	 * @param query
+	 *            the selector
+	 * @param root
+	 *            the element to search below (and including)
+	 * @return the matched elements in document order
+	 */
+	public static Elements select(String query, Element root) {
+		return Collector.collect(SelectorCache.get(query), root);
+	}
+
+	/**
+	 * Equivalent to {@code root.select(query).first()}, using the cached
+	 * compiled form of {@code query}.
+	 * 
+	 * @param query
+	 *            the selector
+	 * @param root
+	 *            the element to search below (and including)
+	 * @return the first matched element, or {@code null}
+	 */
+	public static Element selectFirst(String query, Element root) {
+		return SelectorCache.select(query, root).first();
+	}
+}
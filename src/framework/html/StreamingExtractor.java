@@ -0,0 +1,609 @@
+package framework.html;
+
+import framework.html.HtmlTokenizer.TokenType;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+/**
+ * Extracts the parts of an HTML page relevant to a given set of Jsoup
+ * selectors in a single pass over the page, without building a DOM of the
+ * entire page.
+ * 
+ * The page is scanned by an {@link HtmlTokenizer} while a stack of the
+ * currently open elements (names and attributes only) is maintained. Every
+ * element matching one of the relaxed {@link StreamingSelector}s is copied to
+ * the output verbatim, including its entire subtree, together with the start
+ * and end tags of its ancestors. Everything else (scripts, ads, navigation,
+ * comment sections etc.) is skipped. The output is then parsed into a (small)
+ * Jsoup {@link org.jsoup.nodes.Document}, on which the original selectors
+ * yield the same elements as on the complete page.
+ * 
+ * The stack of open elements follows the most important implicit end tag rules
+ * of HTML (void elements, paragraphs closed by block elements, list items,
+ * table cells etc.); pages relying on more exotic error recovery may produce
+ * different results than the full parser. To detect this, the extractor
+ * reports which queries matched any element while streaming (see
+ * {@link Extraction#isMatched(String)}): if a query matched while streaming,
+ * but yields no elements on the extracted document, callers should fall back
+ * to parsing the complete page.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class StreamingExtractor {
+	/**
+	 * Pattern finding the charset declared in a meta tag
+	 */
+	protected final static Pattern META_CHARSET = Pattern.compile(
+			"<meta[^>]+charset\\s*=\\s*[\"']?([\\w.:-]+)", Pattern.CASE_INSENSITIVE);
+
+	/**
+	 * The Jsoup queries the extractor was compiled from
+	 */
+	protected final List<String> queries;
+
+	/**
+	 * The relaxed selectors determining the subtrees to keep
+	 */
+	protected final List<StreamingSelector> selectors;
+
+	/**
+	 * The index of the query in {@link #queries} each selector was parsed
+	 * from
+	 */
+	protected final int[] queryIndexes;
+
+	/**
+	 * Constructs a StreamingExtractor keeping all subtrees relevant to the
+	 * given {@code selectors}.
+	 * 
+	 * @param queries
+	 *            the Jsoup queries the selectors were parsed from
+	 * @param selectors
+	 *            the selectors
+	 * @param queryIndexes
+	 *            the index of the query in {@code queries} each selector was
+	 *            parsed from
+	 */
+	protected StreamingExtractor(List<String> queries, List<StreamingSelector> selectors,
+			int[] queryIndexes) {
+		this.queries = queries;
+		this.selectors = selectors;
+		this.queryIndexes = queryIndexes;
+	}
+
+	/**
+	 * Creates a StreamingExtractor for the given Jsoup {@code queries}.
+	 * 
+	 * @param queries
+	 *            the Jsoup selectors the extracted document is to be queried
+	 *            with
+	 * @return the extractor
+	 * @throws IllegalArgumentException
+	 *             if any of the queries cannot be evaluated while streaming
+	 */
+	public static StreamingExtractor compile(Collection<String> queries) {
+		List<String> queryList = new ArrayList<String>(queries);
+		List<StreamingSelector> selectors = new ArrayList<StreamingSelector>();
+		List<Integer> queryIndexes = new ArrayList<Integer>();
+
+		for (int i = 0; i < queryList.size(); i++) {
+			for (StreamingSelector selector : StreamingSelector.parse(queryList.get(i))) {
+				selectors.add(selector);
+				queryIndexes.add(i);
+			}
+		}
+
+		return new StreamingExtractor(queryList, selectors, queryIndexes.stream()
+				.mapToInt(Integer::intValue).toArray());
+	}
+
+	/**
+	 * Decodes the page {@code body} and extracts the parts relevant to the
+	 * selectors of this extractor into a Document.
+	 * 
+	 * @param body
+	 *            the raw page
+	 * @param charset
+	 *            the charset of the page as specified in the response headers,
+	 *            or {@code null} to detect it from the page itself
+	 * @param baseUri
+	 *            the URL of the page, used to resolve relative links
+	 * @return the document containing the relevant parts of the page,
+	 *         together with the queries that matched while streaming
+	 */
+	public Extraction extract(byte[] body, String charset, String baseUri) {
+		BitSet matched = new BitSet(this.queries.size());
+		String html = this.extract(new String(body, this.detectCharset(body, charset)),
+				matched);
+		List<String> matchedQueries = new ArrayList<String>();
+
+		for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+			matchedQueries.add(this.queries.get(i));
+		}
+
+		return new Extraction(Jsoup.parse(html, baseUri), matchedQueries);
+	}
+
+	/**
+	 * Extracts the parts of the page {@code html} relevant to the selectors
+	 * of this extractor.
+	 * 
+	 * @param html
+	 *            the page
+	 * @return the HTML of the relevant parts of the page
+	 */
+	public String extract(String html) {
+		return this.extract(html, new BitSet(this.queries.size()));
+	}
+
+	/**
+	 * Extracts the parts of the page {@code html} relevant to the selectors
+	 * of this extractor, recording the queries that matched any element.
+	 * 
+	 * @param html
+	 *            the page
+	 * @param matched
+	 *            receives the indexes of the queries that matched any element
+	 * @return the HTML of the relevant parts of the page
+	 */
+	protected String extract(String html, BitSet matched) {
+		HtmlTokenizer tokenizer = new HtmlTokenizer(html);
+		StringBuilder out = new StringBuilder();
+		List<OpenElement> stack = new ArrayList<OpenElement>();
+
+		// Index of the element whose subtree is currently being copied, or -1
+		int captureRoot = -1;
+		TokenType type;
+
+		while ((type = tokenizer.next()) != TokenType.EOF) {
+			if (type == TokenType.START_TAG) {
+				String name = tokenizer.getTagName();
+				captureRoot = this.closeImplied(stack, name, captureRoot, out);
+
+				OpenElement element = new OpenElement(name, tokenizer.getAttributes(),
+						tokenizer.getSource());
+				boolean isVoid = tokenizer.isSelfClosing() || this.isVoidElement(name);
+				stack.add(element);
+
+				if (this.matches(stack, captureRoot != -1, matched) && captureRoot == -1) {
+					// Write skeleton of ancestors not yet written
+					for (int i = 0; i < stack.size() - 1; i++) {
+						if (!stack.get(i).written) {
+							out.append(stack.get(i).startTag);
+							stack.get(i).written = true;
+						}
+					}
+
+					captureRoot = stack.size() - 1;
+				}
+
+				if (captureRoot != -1) {
+					out.append(element.startTag);
+					element.written = true;
+				}
+
+				if (isVoid) {
+					stack.remove(stack.size() - 1);
+					captureRoot = (captureRoot == stack.size() ? -1 : captureRoot);
+				}
+			}
+			else if (type == TokenType.END_TAG) {
+				int index = this.lastIndexOf(stack, tokenizer.getTagName());
+
+				if (index == -1) {
+					// Stray end tag, copy if inside subtree
+					if (captureRoot != -1) {
+						out.append(tokenizer.getSource());
+					}
+				}
+				else {
+					captureRoot = this.popTo(stack, index, captureRoot, out);
+				}
+			}
+			else if (captureRoot != -1) {
+				out.append(tokenizer.getSource());
+			}
+		}
+
+		this.popTo(stack, 0, captureRoot, out);
+		return out.toString();
+	}
+
+	/**
+	 * Returns whether the element on top of {@code stack} matches any of the
+	 * selectors, recording the queries of the matching selectors in
+	 * {@code matched}. Selectors of queries already recorded are only checked
+	 * as long as the element might start a new subtree to copy.
+	 * 
+	 * @param stack
+	 *            the open elements, the element to check being the last
+	 * @param capturing
+	 *            whether the element is inside a subtree already being copied
+	 * @param matched
+	 *            the indexes of the queries that matched any element so far
+	 * @return whether the element matches
+	 */
+	protected boolean matches(List<OpenElement> stack, boolean capturing, BitSet matched) {
+		boolean matches = false;
+
+		for (int i = 0; i < this.selectors.size(); i++) {
+			int query = this.queryIndexes[i];
+
+			if (matched.get(query) && (matches || capturing)) {
+				continue;
+			}
+
+			if (this.selectors.get(i).matches(stack)) {
+				matches = true;
+				matched.set(query);
+			}
+		}
+
+		return matches;
+	}
+
+	/**
+	 * Closes the elements implicitly closed by a start tag {@code name}
+	 * according to the HTML parsing rules.
+	 * 
+	 * @param stack
+	 *            the open elements
+	 * @param name
+	 *            the name of the start tag
+	 * @param captureRoot
+	 *            the index of the capture root, or -1
+	 * @param out
+	 *            the output
+	 * @return the new index of the capture root, or -1
+	 */
+	protected int closeImplied(List<OpenElement> stack, String name, int captureRoot,
+			StringBuilder out) {
+		int index = -1;
+
+		if (this.closesParagraph(name)) {
+			index = this.indexInScope(stack, Collections.singletonList("p"), SCOPE_BOUNDARIES);
+		}
+
+		switch (name) {
+		case "li":
+			index = this.indexInScope(stack, Collections.singletonList("li"),
+					LIST_SCOPE_BOUNDARIES);
+			break;
+		case "dt":
+		case "dd":
+			index = this.indexInScope(stack, DEFINITION_ITEMS, LIST_SCOPE_BOUNDARIES);
+			break;
+		case "tr":
+			index = this.indexInScope(stack, TABLE_ROW_ITEMS, TABLE_SCOPE_BOUNDARIES);
+			break;
+		case "td":
+		case "th":
+			index = this.indexInScope(stack, TABLE_CELLS, TABLE_SCOPE_BOUNDARIES);
+			break;
+		case "option":
+			if (!stack.isEmpty() && stack.get(stack.size() - 1).name.equals("option")) {
+				index = stack.size() - 1;
+			}
+			break;
+		case "h1":
+		case "h2":
+		case "h3":
+		case "h4":
+		case "h5":
+		case "h6":
+			if (!stack.isEmpty() && HEADINGS.contains(stack.get(stack.size() - 1).name)) {
+				index = stack.size() - 1;
+			}
+			break;
+		default:
+			break;
+		}
+
+		return (index == -1 ? captureRoot : this.popTo(stack, index, captureRoot, out));
+	}
+
+	/**
+	 * Pops all elements from index {@code index} on from {@code stack},
+	 * writing end tags for all written elements.
+	 * 
+	 * @param stack
+	 *            the open elements
+	 * @param index
+	 *            the index of the outermost element to close
+	 * @param captureRoot
+	 *            the index of the capture root, or -1
+	 * @param out
+	 *            the output
+	 * @return the new index of the capture root, or -1
+	 */
+	protected int popTo(List<OpenElement> stack, int index, int captureRoot, StringBuilder out) {
+		for (int i = stack.size() - 1; i >= index; i--) {
+			OpenElement element = stack.remove(i);
+
+			if (element.written) {
+				out.append("</").append(element.name).append('>');
+			}
+		}
+
+		return (captureRoot >= index ? -1 : captureRoot);
+	}
+
+	/**
+	 * Returns the index of the innermost open element named like one of
+	 * {@code names}, searching up to the first element named like one of
+	 * {@code boundaries}.
+	 * 
+	 * @param stack
+	 *            the open elements
+	 * @param names
+	 *            the names of the elements to find
+	 * @param boundaries
+	 *            the names of the elements bounding the search
+	 * @return the index of the element or -1
+	 */
+	protected int indexInScope(List<OpenElement> stack, Collection<String> names,
+			Collection<String> boundaries) {
+		for (int i = stack.size() - 1; i >= 0; i--) {
+			String name = stack.get(i).name;
+
+			if (names.contains(name)) {
+				return i;
+			}
+
+			if (boundaries.contains(name)) {
+				return -1;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Returns the index of the innermost open element named {@code name}.
+	 * 
+	 * @param stack
+	 *            the open elements
+	 * @param name
+	 *            the element name
+	 * @return the index of the element or -1
+	 */
+	protected int lastIndexOf(List<OpenElement> stack, String name) {
+		for (int i = stack.size() - 1; i >= 0; i--) {
+			if (stack.get(i).name.equals(name)) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Determines the charset to decode {@code body} with: the charset from the
+	 * response headers if given, else a byte order mark or a charset declared
+	 * in a meta tag at the beginning of the page, else UTF-8.
+	 * 
+	 * @param body
+	 *            the raw page
+	 * @param charset
+	 *            the charset from the response headers, or {@code null}
+	 * @return the charset to use
+	 */
+	protected Charset detectCharset(byte[] body, String charset) {
+		if (charset == null && body.length >= 3 && (body[0] & 0xFF) == 0xEF
+				&& (body[1] & 0xFF) == 0xBB && (body[2] & 0xFF) == 0xBF) {
+			charset = "UTF-8";
+		}
+
+		if (charset == null) {
+			Matcher matcher = META_CHARSET.matcher(new String(body, 0, Math.min(body.length,
+					1024), StandardCharsets.ISO_8859_1));
+			charset = (matcher.find() ? matcher.group(1) : null);
+		}
+
+		try {
+			if (charset != null && Charset.isSupported(charset)) {
+				return Charset.forName(charset);
+			}
+		}
+		catch (IllegalCharsetNameException e) {
+			// Fall back to default below
+		}
+
+		return StandardCharsets.UTF_8;
+	}
+
+	/**
+	 * @param name
+	 *            the lower case element name
+	 * @return whether the element never has any content
+	 */
+	protected boolean isVoidElement(String name) {
+		return VOID_ELEMENTS.contains(name);
+	}
+
+	/**
+	 * @param name
+	 *            the lower case element name
+	 * @return whether a start tag of the element closes an open paragraph
+	 */
+	protected boolean closesParagraph(String name) {
+		return PARAGRAPH_CLOSERS.contains(name);
+	}
+
+	/**
+	 * Elements without content
+	 */
+	protected final static List<String> VOID_ELEMENTS = list("area", "base", "br", "col",
+			"embed", "hr", "img", "input", "keygen", "link", "meta", "param", "source", "track",
+			"wbr", "basefont", "bgsound", "frame", "command");
+
+	/**
+	 * Elements whose start tag closes an open paragraph
+	 */
+	protected final static List<String> PARAGRAPH_CLOSERS = list("address", "article", "aside",
+			"blockquote", "center", "details", "dialog", "dir", "div", "dl", "fieldset",
+			"figcaption", "figure", "footer", "form", "h1", "h2", "h3", "h4", "h5", "h6", "header",
+			"hgroup", "hr", "li", "dd", "dt", "listing", "main", "menu", "nav", "ol", "p", "pre",
+			"section", "summary", "table", "ul");
+
+	/**
+	 * Elements bounding the search for an open paragraph
+	 */
+	protected final static List<String> SCOPE_BOUNDARIES = list("applet", "caption", "html",
+			"table", "td", "th", "marquee", "object", "button", "template");
+
+	/**
+	 * Elements bounding the search for an open list item
+	 */
+	protected final static List<String> LIST_SCOPE_BOUNDARIES = list("applet", "caption",
+			"html", "table", "td", "th", "marquee", "object", "template", "ol", "ul", "dl");
+
+	/**
+	 * Elements bounding the search for an open table row or cell
+	 */
+	protected final static List<String> TABLE_SCOPE_BOUNDARIES = list("html", "table",
+			"template");
+
+	/**
+	 * Definition list items
+	 */
+	protected final static List<String> DEFINITION_ITEMS = list("dt", "dd");
+
+	/**
+	 * Elements closed by the start of a new table row
+	 */
+	protected final static List<String> TABLE_ROW_ITEMS = list("tr");
+
+	/**
+	 * Table cells
+	 */
+	protected final static List<String> TABLE_CELLS = list("td", "th");
+
+	/**
+	 * Heading elements
+	 */
+	protected final static List<String> HEADINGS = list("h1", "h2", "h3", "h4", "h5", "h6");
+
+	/**
+	 * @param names
+	 *            the element names
+	 * @return an unmodifiable list of the names
+	 */
+	protected static List<String> list(String... names) {
+		return Collections.unmodifiableList(Arrays.asList(names));
+	}
+
+	/**
+	 * The result of extracting the relevant parts of a page
+	 */
+	public static class Extraction {
+		/**
+		 * The document containing the relevant parts of the page
+		 */
+		protected final Document document;
+
+		/**
+		 * The queries that matched any element while streaming
+		 */
+		protected final List<String> matchedQueries;
+
+		/**
+		 * Constructs an Extraction.
+		 * 
+		 * @param document
+		 *            the document containing the relevant parts of the page
+		 * @param matchedQueries
+		 *            the queries that matched any element while streaming
+		 */
+		protected Extraction(Document document, List<String> matchedQueries) {
+			this.document = document;
+			this.matchedQueries = matchedQueries;
+		}
+
+		/**
+		 * @return the document containing the relevant parts of the page
+		 */
+		public Document getDocument() {
+			return this.document;
+		}
+
+		/**
+		 * Returns whether {@code query} matched any element of the page while
+		 * streaming. As the streaming selectors are relaxed, a query may match
+		 * while streaming although the original query matches no element.
+		 * 
+		 * @param query
+		 *            one of the queries the extractor was compiled from
+		 * @return whether the query matched while streaming
+		 */
+		public boolean isMatched(String query) {
+			return this.matchedQueries.contains(query);
+		}
+	}
+
+	/**
+	 * An element on the stack of open elements
+	 */
+	protected static class OpenElement implements StreamingSelector.ElementInfo {
+		/**
+		 * The lower case tag name
+		 */
+		protected final String name;
+
+		/**
+		 * The attributes
+		 */
+		protected final Map<String, String> attributes;
+
+		/**
+		 * The source of the start tag
+		 */
+		protected final String startTag;
+
+		/**
+		 * Whether the start tag has been written to the output
+		 */
+		protected boolean written;
+
+		/**
+		 * Constructs an OpenElement.
+		 * 
+		 * @param name
+		 *            the lower case tag name
+		 * @param attributes
+		 *            the attributes
+		 * @param startTag
+		 *            the source of the start tag
+		 */
+		protected OpenElement(String name, Map<String, String> attributes, String startTag) {
+			this.name = name;
+			this.attributes = attributes;
+			this.startTag = startTag;
+		}
+
+		@Override
+		public String getTagName() {
+			return this.name;
+		}
+
+		@Override
+		public Map<String, String> getAttributes() {
+			return this.attributes;
+		}
+	}
+}
@@ -0,0 +1,561 @@
+package framework.html;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A CSS selector that can be evaluated while streaming through an HTML
+ * document, i.e. using only the element itself and its ancestors. Used by
+ * {@link StreamingExtractor}.
+ * 
+ * Jsoup selectors are supported in a relaxed form: every element matching the
+ * original selector matches the relaxed selector, or is a descendant of an
+ * element matching it. The original selector can therefore be evaluated on a
+ * document reduced to the subtrees matching the relaxed selector (plus their
+ * ancestors) and yields the same result as on the full document. The
+ * relaxation works as follows:
+ * <ul>
+ * <li>Type, id, class and attribute conditions ({@code [a]}, {@code [a=v]},
+ * {@code [a^=v]}, {@code [a$=v]}, {@code [a*=v]}) and the descendant and child
+ * combinators are evaluated as specified, ignoring case.</li>
+ * <li>Other attribute conditions and the pseudo selectors {@code :not},
+ * {@code :has}, {@code :contains}, {@code :containsOwn}, {@code :matches} and
+ * {@code :matchesOwn} are dropped, as they only depend on the element itself
+ * and its descendants.</li>
+ * <li>At the first sibling combinator ({@code +}, {@code ~}) or structural
+ * pseudo selector (e.g. {@code :first-child}, {@code :eq(n)}), the selector is
+ * cut off before the compound selector concerned, so that the subtree of its
+ * ancestor (which contains all siblings) is kept.</li>
+ * </ul>
+ * Selectors that cannot be relaxed this way (e.g. {@code h1 ~ p}, which would
+ * leave nothing to match) are rejected by {@link #parse(String)}.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class StreamingSelector {
+	/**
+	 * The compound selectors of this selector, from left to right
+	 */
+	protected final List<Compound> compounds;
+
+	/**
+	 * Whether the compound selector at the same index is combined with its
+	 * predecessor by a child combinator (as opposed to a descendant
+	 * combinator). The first entry is unused.
+	 */
+	protected final List<Boolean> childCombinators;
+
+	/**
+	 * Constructs a StreamingSelector from the given parts.
+	 * 
+	 * @param compounds
+	 *            the compound selectors
+	 * @param childCombinators
+	 *            the combinators preceding the compound selectors
+	 */
+	protected StreamingSelector(List<Compound> compounds, List<Boolean> childCombinators) {
+		this.compounds = compounds;
+		this.childCombinators = childCombinators;
+	}
+
+	/**
+	 * Parses the (possibly comma-separated) Jsoup selector {@code query} into
+	 * relaxed StreamingSelectors as described in the class documentation.
+	 * 
+	 * @param query
+	 *            the selector to parse
+	 * @return the relaxed selectors, one per comma-separated group
+	 * @throws IllegalArgumentException
+	 *             if the selector is invalid or cannot be relaxed
+	 */
+	public static List<StreamingSelector> parse(String query) {
+		List<StreamingSelector> selectors = new ArrayList<StreamingSelector>();
+
+		for (String group : split(query, ',')) {
+			if (group.trim().isEmpty()) {
+				throw new IllegalArgumentException("Empty selector group in " + query);
+			}
+
+			selectors.add(parseGroup(group.trim()));
+		}
+
+		return selectors;
+	}
+
+	/**
+	 * Parses a single selector group (without commas).
+	 * 
+	 * @param group
+	 *            the selector group
+	 * @return the relaxed selector
+	 */
+	protected static StreamingSelector parseGroup(String group) {
+		List<Compound> compounds = new ArrayList<Compound>();
+		List<Boolean> childCombinators = new ArrayList<Boolean>();
+		boolean childCombinator = false;
+		int i = 0;
+
+		while (i < group.length()) {
+			char c = group.charAt(i);
+
+			if (Character.isWhitespace(c)) {
+				i++;
+				continue;
+			}
+
+			if (c == '>') {
+				childCombinator = true;
+				i++;
+				continue;
+			}
+
+			if (c == '+' || c == '~') {
+				// Keep subtree of the ancestor of the compound before the
+				// sibling combinator
+				if (!compounds.isEmpty()) {
+					compounds.remove(compounds.size() - 1);
+					childCombinators.remove(childCombinators.size() - 1);
+				}
+
+				break;
+			}
+
+			int end = findCompoundEnd(group, i);
+			Compound compound = Compound.parse(group.substring(i, end));
+
+			if (compound == null) {
+				// Structural pseudo selector, keep subtree of ancestor
+				break;
+			}
+
+			compounds.add(compound);
+			childCombinators.add(childCombinator);
+			childCombinator = false;
+			i = end;
+		}
+
+		if (compounds.isEmpty()) {
+			throw new IllegalArgumentException("Selector " + group
+					+ " cannot be evaluated while streaming");
+		}
+
+		return new StreamingSelector(compounds, childCombinators);
+	}
+
+	/**
+	 * Returns whether the element {@code path.get(path.size() - 1)}, whose
+	 * ancestors are the other entries of {@code path} (outermost first),
+	 * matches this selector.
+	 * 
+	 * @param path
+	 *            the element and its ancestors
+	 * @return whether the element matches
+	 */
+	public boolean matches(List<? extends ElementInfo> path) {
+		return this.matches(this.compounds.size() - 1, path, path.size() - 1);
+	}
+
+	/**
+	 * Returns whether the compound selectors up to {@code compound} match the
+	 * element at {@code index} of {@code path} and its ancestors.
+	 * 
+	 * @param compound
+	 *            the index of the compound selector
+	 * @param path
+	 *            the element path
+	 * @param index
+	 *            the index of the element in the path
+	 * @return whether the element matches
+	 */
+	protected boolean matches(int compound, List<? extends ElementInfo> path, int index) {
+		if (!this.compounds.get(compound).matches(path.get(index))) {
+			return false;
+		}
+
+		if (compound == 0) {
+			return true;
+		}
+
+		if (this.childCombinators.get(compound)) {
+			return index > 0 && this.matches(compound - 1, path, index - 1);
+		}
+
+		for (int ancestor = index - 1; ancestor >= 0; ancestor--) {
+			if (this.matches(compound - 1, path, ancestor)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Splits {@code str} at every occurrence of {@code separator} that is not
+	 * enclosed in quotes, brackets or parentheses.
+	 * 
+	 * @param str
+	 *            the string to split
+	 * @param separator
+	 *            the separator
+	 * @return the parts
+	 * @throws IllegalArgumentException
+	 *             if quotes, brackets or parentheses are unbalanced
+	 */
+	protected static List<String> split(String str, char separator) {
+		List<String> parts = new ArrayList<String>();
+		int depth = 0;
+		char quote = 0;
+		int start = 0;
+
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+
+			if (quote != 0) {
+				quote = (c == quote ? 0 : quote);
+			}
+			else if (c == '"' || c == '\'') {
+				quote = c;
+			}
+			else if (c == '(' || c == '[') {
+				depth++;
+			}
+			else if (c == ')' || c == ']') {
+				depth--;
+			}
+			else if (c == separator && depth == 0) {
+				parts.add(str.substring(start, i));
+				start = i + 1;
+			}
+		}
+
+		if (depth != 0 || quote != 0) {
+			throw new IllegalArgumentException("Unbalanced selector " + str);
+		}
+
+		parts.add(str.substring(start));
+		return parts;
+	}
+
+	/**
+	 * Returns the end of the compound selector starting at {@code start}.
+	 * 
+	 * @param group
+	 *            the selector group
+	 * @param start
+	 *            the start of the compound selector
+	 * @return the end (exclusive) of the compound selector
+	 */
+	protected static int findCompoundEnd(String group, int start) {
+		int depth = 0;
+		char quote = 0;
+
+		for (int i = start; i < group.length(); i++) {
+			char c = group.charAt(i);
+
+			if (quote != 0) {
+				quote = (c == quote ? 0 : quote);
+			}
+			else if (c == '"' || c == '\'') {
+				quote = c;
+			}
+			else if (c == '(' || c == '[') {
+				depth++;
+			}
+			else if (c == ')' || c == ']') {
+				depth--;
+			}
+			else if (depth == 0
+					&& (Character.isWhitespace(c) || c == '>' || c == '+' || c == '~')) {
+				return i;
+			}
+		}
+
+		return group.length();
+	}
+
+	/**
+	 * The information about an element available while streaming, i.e. its
+	 * name and attributes.
+	 */
+	public interface ElementInfo {
+		/**
+		 * @return the lower case tag name
+		 */
+		String getTagName();
+
+		/**
+		 * @return the attributes, mapping lower case names to values
+		 */
+		Map<String, String> getAttributes();
+	}
+
+	/**
+	 * A compound selector, i.e. a sequence of simple selectors applying to the
+	 * same element (e.g. {@code div#main.article[data-id]}).
+	 */
+	protected static class Compound {
+		/**
+		 * The required tag name, or {@code null} for any element
+		 */
+		protected String tagName;
+
+		/**
+		 * The required attribute conditions, each consisting of the attribute
+		 * name, the operator ("", "=", "^=", "$=" or "*=") and the value
+		 */
+		protected final List<String[]> conditions = new ArrayList<String[]>();
+
+		/**
+		 * Parses a compound selector.
+		 * 
+		 * @param str
+		 *            the compound selector
+		 * @return the compound selector, or {@code null} if it contains a
+		 *         structural pseudo selector
+		 * @throws IllegalArgumentException
+		 *             if the compound selector is invalid
+		 */
+		protected static Compound parse(String str) {
+			Compound compound = new Compound();
+			int i = 0;
+
+			while (i < str.length()) {
+				char c = str.charAt(i);
+
+				if (c == '*') {
+					i++;
+				}
+				else if (c == '#' || c == '.') {
+					int end = i + 1;
+
+					while (end < str.length() && isIdentifierChar(str.charAt(end))) {
+						end++;
+					}
+
+					if (end == i + 1) {
+						throw new IllegalArgumentException("Invalid selector " + str);
+					}
+
+					String name = str.substring(i + 1, end);
+					compound.conditions.add((c == '#' ? new String[] { "id", "=", name }
+							: new String[] { "class", "~=", name }));
+					i = end;
+				}
+				else if (c == '[') {
+					int end = findClosing(str, i, '[', ']');
+					compound.addAttributeCondition(str.substring(i + 1, end).trim());
+					i = end + 1;
+				}
+				else if (c == ':') {
+					int end = i + 1;
+
+					while (end < str.length() && isIdentifierChar(str.charAt(end))) {
+						end++;
+					}
+
+					String pseudo = str.substring(i + 1, end).toLowerCase();
+
+					if (end < str.length() && str.charAt(end) == '(') {
+						end = findClosing(str, end, '(', ')') + 1;
+					}
+
+					if (!isDescendantOnlyPseudo(pseudo)) {
+						return null;
+					}
+
+					i = end;
+				}
+				else if (isIdentifierChar(c) && i == 0) {
+					int end = i;
+
+					while (end < str.length() && isIdentifierChar(str.charAt(end))) {
+						end++;
+					}
+
+					compound.tagName = str.substring(i, end).toLowerCase();
+					i = end;
+				}
+				else {
+					throw new IllegalArgumentException("Invalid selector " + str);
+				}
+			}
+
+			return compound;
+		}
+
+		/**
+		 * Adds the condition of the attribute selector {@code str} (without
+		 * brackets). Unsupported operators are dropped, relaxing the selector.
+		 * 
+		 * @param str
+		 *            the attribute selector
+		 */
+		protected void addAttributeCondition(String str) {
+			int index = str.indexOf('=');
+
+			if (index == -1) {
+				// Attribute prefix selector [^data-] is dropped
+				if (!str.startsWith("^")) {
+					this.conditions.add(new String[] { str.toLowerCase(), "", "" });
+				}
+
+				return;
+			}
+
+			String operator = "=";
+
+			if (index > 0 && "^$*~!".indexOf(str.charAt(index - 1)) != -1) {
+				operator = str.charAt(index - 1) + "=";
+				index--;
+			}
+
+			String name = str.substring(0, index).trim().toLowerCase();
+			String value = str.substring(index + operator.length()).trim();
+
+			if (value.length() >= 2 && (value.charAt(0) == '"' || value.charAt(0) == '\'')
+					&& value.charAt(value.length() - 1) == value.charAt(0)) {
+				value = value.substring(1, value.length() - 1);
+			}
+
+			if (operator.equals("~=")) {
+				// Regular expression: only require the attribute
+				this.conditions.add(new String[] { name, "", "" });
+			}
+			else if (!operator.equals("!=")) {
+				// Negation is dropped, as elements without the attribute match
+				this.conditions.add(new String[] { name, operator, value });
+			}
+		}
+
+		/**
+		 * Returns whether {@code element} matches this compound selector.
+		 * 
+		 * @param element
+		 *            the element
+		 * @return whether the element matches
+		 */
+		protected boolean matches(ElementInfo element) {
+			if (this.tagName != null && !this.tagName.equals(element.getTagName())) {
+				return false;
+			}
+
+			for (String[] condition : this.conditions) {
+				String value = element.getAttributes().get(condition[0]);
+
+				if (value == null) {
+					return false;
+				}
+
+				value = value.toLowerCase();
+				String expected = condition[2].toLowerCase();
+
+				switch (condition[1]) {
+				case "=":
+					if (!value.trim().equals(expected)) {
+						return false;
+					}
+					break;
+				case "^=":
+					if (!value.startsWith(expected)) {
+						return false;
+					}
+					break;
+				case "$=":
+					if (!value.endsWith(expected)) {
+						return false;
+					}
+					break;
+				case "*=":
+					if (!value.contains(expected)) {
+						return false;
+					}
+					break;
+				case "~=":
+					// Class names: whitespace-separated list
+					if (!(" " + value.replaceAll("\\s+", " ") + " ").contains(" " + expected + " ")) {
+						return false;
+					}
+					break;
+				default:
+					break;
+				}
+			}
+
+			return true;
+		}
+
+		/**
+		 * Returns whether the pseudo selector {@code pseudo} only depends on
+		 * the element itself and its descendants, so that dropping it relaxes
+		 * the selector without requiring siblings to be kept.
+		 * 
+		 * @param pseudo
+		 *            the lower case name of the pseudo selector
+		 * @return whether the pseudo selector can be dropped
+		 */
+		protected static boolean isDescendantOnlyPseudo(String pseudo) {
+			switch (pseudo) {
+			case "not":
+			case "has":
+			case "contains":
+			case "containsown":
+			case "matches":
+			case "matchesown":
+			case "containsdata":
+				return true;
+			default:
+				return false;
+			}
+		}
+
+		/**
+		 * Returns the index of the bracket closing the one at {@code start}.
+		 * 
+		 * @param str
+		 *            the string to search
+		 * @param start
+		 *            the index of the opening bracket
+		 * @param open
+		 *            the opening bracket
+		 * @param close
+		 *            the closing bracket
+		 * @return the index of the closing bracket
+		 * @throws IllegalArgumentException
+		 *             if the bracket is not closed
+		 */
+		protected static int findClosing(String str, int start, char open, char close) {
+			int depth = 0;
+			char quote = 0;
+
+			for (int i = start; i < str.length(); i++) {
+				char c = str.charAt(i);
+
+				if (quote != 0) {
+					quote = (c == quote ? 0 : quote);
+				}
+				else if (c == '"' || c == '\'') {
+					quote = c;
+				}
+				else if (c == open) {
+					depth++;
+				}
+				else if (c == close && --depth == 0) {
+					return i;
+				}
+			}
+
+			throw new IllegalArgumentException("Unbalanced selector " + str);
+		}
+
+		/**
+		 * @param c
+		 *            the character to check
+		 * @return whether {@code c} may be part of a tag name, id or class
+		 */
+		protected static boolean isIdentifierChar(char c) {
+			return Character.isLetterOrDigit(c) || c == '-' || c == '_';
+		}
+	}
+}
@@ -0,0 +1,157 @@
+package framework.http;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker used by {@link HttpClient} to stop sending requests to a
+ * host that is down. One breaker exists per host.
+ * 
+ * The breaker starts closed, letting all requests pass. After
+ * {@code failureThreshold} consecutive failed requests (counting each request
+ * once, however often it was retried) it opens, and all
+ * requests fail immediately with a {@link CircuitOpenException} for
+ * {@code openDuration} milliseconds. Afterwards, a single trial request is let
+ * through (half-open state): if it succeeds, the breaker closes again,
+ * otherwise it stays open for another {@code openDuration} milliseconds.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class CircuitBreaker {
+	/**
+	 * The states a circuit breaker can be in
+	 */
+	public enum State {
+		/**
+		 * All requests are let through
+		 */
+		CLOSED,
+
+		/**
+		 * No requests are let through
+		 */
+		OPEN,
+
+		/**
+		 * A single trial request is let through
+		 */
+		HALF_OPEN
+	}
+
+	/**
+	 * The host this breaker applies to
+	 */
+	protected final String host;
+
+	/**
+	 * The number of consecutive failures opening the breaker
+	 */
+	protected final int failureThreshold;
+
+	/**
+	 * The time in nanoseconds the breaker stays open
+	 */
+	protected final long openDuration;
+
+	/**
+	 * The current state
+	 */
+	protected State state;
+
+	/**
+	 * The number of consecutive failures
+	 */
+	protected int failures;
+
+	/**
+	 * The time (as returned by {@link System#nanoTime()}) the breaker was last
+	 * opened
+	 */
+	protected long openedAt;
+
+	/**
+	 * Whether the trial request of the half-open state is in flight
+	 */
+	protected boolean trialInFlight;
+
+	/**
+	 * Constructs a closed CircuitBreaker for {@code host}.
+	 * 
+	 * @param host
+	 *            the host the breaker applies to
+	 * @param failureThreshold
+	 *            the number of consecutive failures opening the breaker
+	 * @param openDuration
+	 *            the time in milliseconds the breaker stays open
+	 */
+	public CircuitBreaker(String host, int failureThreshold, long openDuration) {
+		this.host = host;
+		this.failureThreshold = Math.max(1, failureThreshold);
+		this.openDuration = TimeUnit.MILLISECONDS.toNanos(openDuration);
+		this.state = State.CLOSED;
+	}
+
+	/**
+	 * Checks whether a request may be sent. If the breaker is open and the
+	 * open duration has elapsed, the breaker becomes half-open and the calling
+	 * request is let through as the trial request.
+	 * 
+	 * @throws CircuitOpenException
+	 *             if the request must not be sent
+	 */
+	public synchronized void beforeRequest() throws CircuitOpenException {
+		if (this.state == State.OPEN && System.nanoTime() - this.openedAt >= this.openDuration) {
+			this.state = State.HALF_OPEN;
+			this.trialInFlight = false;
+		}
+
+		if (this.state == State.OPEN || (this.state == State.HALF_OPEN && this.trialInFlight)) {
+			throw new CircuitOpenException(this.host);
+		}
+
+		if (this.state == State.HALF_OPEN) {
+			this.trialInFlight = true;
+		}
+	}
+
+	/**
+	 * Records a successful request, closing the breaker.
+	 */
+	public synchronized void recordSuccess() {
+		this.failures = 0;
+		this.trialInFlight = false;
+		this.state = State.CLOSED;
+	}
+
+	/**
+	 * Records a failed request, opening the breaker if the failure threshold
+	 * is reached or the trial request of the half-open state failed.
+	 */
+	public synchronized void recordFailure() {
+		this.failures++;
+		this.trialInFlight = false;
+
+		if (this.state == State.HALF_OPEN
+				|| (this.state == State.CLOSED && this.failures >= this.failureThreshold)) {
+			this.state = State.OPEN;
+			this.openedAt = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Records a request that was let through but ended without an outcome
+	 * (e.g. because it was cancelled), neither closing nor opening the
+	 * breaker. If it was the trial request of the half-open state, the next
+	 * request becomes the trial request.
+	 */
+	public synchronized void recordAborted() {
+		this.trialInFlight = false;
+	}
+
+	/**
+	 * @return the state
+	 */
+	public synchronized State getState() {
+		return this.state;
+	}
+}
@@ -0,0 +1,38 @@
+package framework.http;
+
+import java.io.IOException;
+
+/**
+ * Signals that a request was not sent because the {@link CircuitBreaker} of
+ * the requested host is open, i.e. the host has failed repeatedly and is
+ * assumed to be down.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class CircuitOpenException extends IOException {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The host whose circuit breaker is open
+	 */
+	protected final String host;
+
+	/**
+	 * Constructs a CircuitOpenException for the given host.
+	 * 
+	 * @param host
+	 *            the host whose circuit breaker is open
+	 */
+	public CircuitOpenException(String host) {
+		super("Circuit breaker for " + host + " is open, request not sent");
+		this.host = host;
+	}
+
+	/**
+	 * @return the host
+	 */
+	public String getHost() {
+		return this.host;
+	}
+}
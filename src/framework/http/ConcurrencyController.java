@@ -0,0 +1,315 @@
+package framework.http;
+
+import java.net.HttpURLConnection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of concurrent requests sent to a single host, adjusting the
+ * limit at runtime using additive increase / multiplicative decrease (AIMD).
+ * Used by {@link HttpClient}, which creates one controller per host.
+ * 
+ * While responses stay healthy, the limit is increased by about one request
+ * per round trip (i.e. by {@code 1 / limit} per response). When the server
+ * signals overload (HTTP 429 or 503), a request fails, or the smoothed latency
+ * rises above {@code latencyTolerance} times the baseline latency of the host,
+ * the limit is multiplied by {@code backoffFactor}. The baseline is the median
+ * latency of the recent successful (2xx) responses; other responses (e.g.
+ * 304 revalidations and redirects) carry no page and would understate it. The limit is
+ * decreased at most once per smoothed round trip, so that a burst of throttled
+ * responses to requests sent at the same time only counts once.
+ * 
+ * A controller created with {@code adaptive} set to {@code false} keeps its
+ * initial limit and acts as a plain semaphore.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class ConcurrencyController {
+	/**
+	 * Weight of a new sample in the smoothed latency
+	 */
+	protected final static double LATENCY_SMOOTHING = 0.2;
+
+	/**
+	 * The percentile of the recent latencies used as baseline latency
+	 */
+	protected final static double BASELINE_PERCENTILE = 50;
+
+	/**
+	 * The number of latencies required before backing off due to latency,
+	 * and the number of latencies after which the baseline is recomputed
+	 */
+	protected final static int BASELINE_SAMPLES = 16;
+
+	/**
+	 * Whether the limit is adjusted at runtime
+	 */
+	protected final boolean adaptive;
+
+	/**
+	 * The lower bound of the limit
+	 */
+	protected final int minLimit;
+
+	/**
+	 * The upper bound of the limit
+	 */
+	protected final int maxLimit;
+
+	/**
+	 * The factor the limit is multiplied with when backing off
+	 */
+	protected final double backoffFactor;
+
+	/**
+	 * The factor the smoothed latency may exceed the baseline latency by
+	 * before backing off
+	 */
+	protected final double latencyTolerance;
+
+	/**
+	 * The current limit; the number of requests allowed at once is its
+	 * integral part
+	 */
+	protected double limit;
+
+	/**
+	 * The number of requests currently in flight
+	 */
+	protected int inFlight;
+
+	/**
+	 * Exponentially smoothed latency of recent responses in milliseconds, or 0
+	 * if no response has been received yet
+	 */
+	protected double smoothedLatency;
+
+	/**
+	 * The latencies of the recent successful responses
+	 */
+	protected final LatencyTracker latencies = new LatencyTracker();
+
+	/**
+	 * The number of latencies recorded since the baseline was last computed
+	 */
+	protected int samplesSinceBaseline;
+
+	/**
+	 * The median of the recent latencies in milliseconds, or 0 if less than
+	 * {@link #BASELINE_SAMPLES} latencies have been recorded
+	 */
+	protected double baselineLatency;
+
+	/**
+	 * The time (as returned by {@link System#nanoTime()}) the limit was last
+	 * decreased
+	 */
+	protected long lastBackoff;
+
+	/**
+	 * Lock guarding all mutable state
+	 */
+	protected final ReentrantLock lock = new ReentrantLock(true);
+
+	/**
+	 * Signalled whenever a request completes or the limit is raised
+	 */
+	protected final Condition available = this.lock.newCondition();
+
+	/**
+	 * Constructs a ConcurrencyController with the given settings.
+	 * 
+	 * @param initialLimit
+	 *            the limit to start with, clamped to the given bounds
+	 * @param minLimit
+	 *            the lower bound of the limit, at least 1
+	 * @param maxLimit
+	 *            the upper bound of the limit
+	 * @param backoffFactor
+	 *            the factor (between 0 and 1) the limit is multiplied with when
+	 *            backing off
+	 * @param latencyTolerance
+	 *            the factor the smoothed latency may exceed the baseline
+	 *            latency by before backing off
+	 * @param adaptive
+	 *            whether the limit is adjusted at runtime
+	 */
+	public ConcurrencyController(double initialLimit, int minLimit, int maxLimit,
+			double backoffFactor, double latencyTolerance, boolean adaptive) {
+		this.minLimit = Math.max(1, minLimit);
+		this.maxLimit = Math.max(this.minLimit, maxLimit);
+		this.backoffFactor = backoffFactor;
+		this.latencyTolerance = latencyTolerance;
+		this.adaptive = adaptive;
+		this.limit = this.clamp(initialLimit);
+		this.lastBackoff = System.nanoTime() - TimeUnit.HOURS.toNanos(1);
+	}
+
+	/**
+	 * Blocks until the number of requests in flight is below the current limit
+	 * and registers a new request.
+	 * 
+	 * @throws InterruptedException
+	 *             if the calling thread is interrupted while waiting
+	 */
+	public void acquire() throws InterruptedException {
+		this.lock.lock();
+
+		try {
+			while (this.inFlight >= (int) this.limit) {
+				this.available.await();
+			}
+
+			this.inFlight++;
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Unregisters a request that was answered with {@code statusCode} after
+	 * {@code latency} milliseconds and adjusts the limit accordingly.
+	 * 
+	 * @param statusCode
+	 *            the status code of the response
+	 * @param latency
+	 *            the time in milliseconds it took to obtain the response
+	 */
+	public void release(int statusCode, long latency) {
+		this.lock.lock();
+
+		try {
+			this.inFlight--;
+
+			if (this.adaptive) {
+				if (statusCode >= 200 && statusCode < 300) {
+					this.updateLatency(latency);
+				}
+
+				boolean slow = (this.baselineLatency > 0
+						&& this.smoothedLatency > this.baselineLatency * this.latencyTolerance);
+
+				if (statusCode == 429 || statusCode == HttpURLConnection.HTTP_UNAVAILABLE || slow) {
+					this.backOff();
+				}
+				else if (this.inFlight + 1 >= (int) this.limit) {
+					// Only probe upwards if the limit was actually reached,
+					// otherwise the limit would grow without bounds while
+					// requests are limited elsewhere
+					this.limit = this.clamp(this.limit + 1 / this.limit);
+				}
+			}
+
+			this.available.signalAll();
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Unregisters a request that failed without a response (e.g. due to a
+	 * timeout) and backs off.
+	 */
+	public void releaseFailed() {
+		this.lock.lock();
+
+		try {
+			this.inFlight--;
+
+			if (this.adaptive) {
+				this.backOff();
+			}
+
+			this.available.signalAll();
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Unregisters a request that was never sent (e.g. because it was cancelled
+	 * while waiting for the rate limit) without adjusting the limit.
+	 */
+	public void releaseUnsent() {
+		this.lock.lock();
+
+		try {
+			this.inFlight--;
+			this.available.signalAll();
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Multiplies the limit by {@link #backoffFactor}, unless the limit has
+	 * already been decreased within the last smoothed round trip. Must be
+	 * called while holding {@link #lock}.
+	 */
+	protected void backOff() {
+		long now = System.nanoTime();
+
+		if (now - this.lastBackoff < TimeUnit.MILLISECONDS.toNanos((long) this.smoothedLatency)) {
+			return;
+		}
+
+		this.limit = this.clamp(this.limit * this.backoffFactor);
+		this.lastBackoff = now;
+	}
+
+	/**
+	 * Incorporates the latency of a successful response into the smoothed
+	 * latency and the recent latencies, recomputing the baseline latency every
+	 * {@link #BASELINE_SAMPLES} latencies. Must be called while holding
+	 * {@link #lock}.
+	 * 
+	 * @param latency
+	 *            the latency in milliseconds
+	 */
+	protected void updateLatency(long latency) {
+		// Avoid a baseline of 0 for responses served faster than the clock
+		// resolution
+		double sample = Math.max(1, latency);
+
+		this.smoothedLatency = (this.smoothedLatency == 0 ? sample : this.smoothedLatency
+				+ (sample - this.smoothedLatency) * LATENCY_SMOOTHING);
+		this.latencies.record((long) sample);
+
+		if (++this.samplesSinceBaseline >= BASELINE_SAMPLES) {
+			this.baselineLatency = Math.max(0, this.latencies.getPercentile(
+					BASELINE_PERCENTILE, BASELINE_SAMPLES));
+			this.samplesSinceBaseline = 0;
+		}
+	}
+
+	/**
+	 * Clamps {@code value} to the bounds of the limit.
+	 * 
+	 * @param value
+	 *            the value to clamp
+	 * @return the clamped value
+	 */
+	protected double clamp(double value) {
+		return Math.min(this.maxLimit, Math.max(this.minLimit, value));
+	}
+
+	/**
+	 * @return the current limit
+	 */
+	public double getLimit() {
+		this.lock.lock();
+
+		try {
+			return this.limit;
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,1439 @@
+package framework.http;
+
+import framework.helpers.ConfigReader;
+import framework.helpers.LoggerGenerator;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.PushbackInputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Shared HTTP client used for all network requests performed by the framework
+ * (search pages, API calls and article pages). Only one instance exists, which
+ * can be obtained via {@link #getInstance()}.
+ * 
+ * Connections are kept alive and pooled per host by the JDK's
+ * {@link java.net.HttpURLConnection} implementation, as long as every response
+ * body is read entirely and its stream is closed afterwards, which this class
+ * guarantees. All HTTPS connections share a single
+ * {@link javax.net.ssl.SSLSocketFactory} so that pooled connections can be
+ * reused across requests and TLS sessions can be resumed instead of performing
+ * a full handshake for every new connection. Additionally, the number of
+ * concurrent connections to a single host is limited by a
+ * {@link ConcurrencyController}, which adapts the limit to the latency and
+ * throttling responses of the host, and the rate of requests sent to a domain
+ * can be limited via {@link #setRateLimit(String, double, int)}. The limits
+ * learned for every host can be saved when the application exits, so that the
+ * next run starts with them.
+ * 
+ * Failed requests are retried as decided by a {@link RetryPolicy}, using
+ * exponential backoff with jitter. A {@link CircuitBreaker} per host stops
+ * sending requests to a host that keeps failing and lets requests pass again
+ * after a pause, so that a single host being down neither stalls the
+ * application nor wastes requests. Concurrent requests for the same URL (with
+ * the same headers) are coalesced: only the first one is performed, all others
+ * wait for and share its response.
+ * 
+ * Requests made via {@link #get(URL, Map, boolean)} with hedging requested
+ * are duplicated if they take longer than a configured percentile of the
+ * latencies recently observed for the host; the response arriving first is
+ * used. The share of hedged requests is capped by a budget.
+ * 
+ * If enabled, successful responses are cached on disk by a
+ * {@link ResponseCache} and served from there (after revalidation with the
+ * server, if necessary) in later requests and later runs of the application.
+ * For reproducible measurements, all responses can instead be recorded to and
+ * replayed from a {@link ResponseArchive}; the response cache is bypassed
+ * while an archive is in use.
+ * 
+ * The behavior of the client can be configured in the NewsScraper.properties
+ * file using the HttpClient.* properties.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class HttpClient {
+	/**
+	 * The single instance of this class
+	 */
+	private static HttpClient instance;
+
+	/**
+	 * Connect and read timeout in milliseconds
+	 */
+	protected final int timeout;
+
+	/**
+	 * The maximum number of concurrent connections to a single host. Also used
+	 * as the maximum number of idle connections kept alive per host.
+	 */
+	protected final int maxConnectionsPerHost;
+
+	/**
+	 * Whether the number of concurrent connections per host is adjusted at
+	 * runtime. If not, it is fixed to {@link #maxConnectionsPerHost}.
+	 */
+	protected final boolean adaptiveConcurrency;
+
+	/**
+	 * The number of concurrent connections allowed to a host no limit has
+	 * been learned for yet
+	 */
+	protected final int initialConcurrency;
+
+	/**
+	 * The minimum number of concurrent connections allowed to a host
+	 */
+	protected final int minConcurrency;
+
+	/**
+	 * The factor the number of concurrent connections is multiplied with when
+	 * a host signals overload
+	 */
+	protected final double backoffFactor;
+
+	/**
+	 * The factor the latency of a host may rise above its baseline latency by
+	 * before backing off
+	 */
+	protected final double latencyTolerance;
+
+	/**
+	 * The file the learned limits are read from and saved to, or {@code null}
+	 * if the limits should not be persisted
+	 */
+	protected final File concurrencyStateFile;
+
+	/**
+	 * The limits learned in previous runs, mapped to the host they apply to
+	 */
+	protected final Properties learnedLimits;
+
+	/**
+	 * The maximum number of redirects followed for a single request
+	 */
+	protected final int maxRedirects;
+
+	/**
+	 * The SSLSocketFactory shared by all HTTPS connections
+	 */
+	protected final SSLSocketFactory sslSocketFactory;
+
+	/**
+	 * Controllers limiting the number of concurrent connections, mapped to the
+	 * host they apply to
+	 */
+	protected final ConcurrentMap<String, ConcurrencyController> concurrencyControllers;
+
+	/**
+	 * The policy deciding whether and when failed requests are retried
+	 */
+	protected final RetryPolicy retryPolicy;
+
+	/**
+	 * The number of consecutive failures opening the circuit breaker of a host
+	 */
+	protected final int circuitBreakerThreshold;
+
+	/**
+	 * The time in milliseconds the circuit breaker of a host stays open
+	 */
+	protected final long circuitBreakerOpenDuration;
+
+	/**
+	 * Whether hedging is enabled
+	 */
+	protected final boolean hedgingEnabled;
+
+	/**
+	 * The percentile of recent latencies after which a request is hedged
+	 */
+	protected final double hedgingPercentile;
+
+	/**
+	 * The maximum share of hedgeable requests that may actually be hedged
+	 */
+	protected final double hedgingMaxRatio;
+
+	/**
+	 * The number of latencies that must have been observed for a host before
+	 * requests to it are hedged
+	 */
+	protected final int hedgingMinSamples;
+
+	/**
+	 * The number of requests made with hedging requested
+	 */
+	protected final AtomicLong hedgeableRequests;
+
+	/**
+	 * The number of requests that were actually hedged
+	 */
+	protected final AtomicLong hedgedRequests;
+
+	/**
+	 * Executor running the attempts of hedged requests, or {@code null} if
+	 * hedging is disabled
+	 */
+	protected final ExecutorService hedgingExecutor;
+
+	/**
+	 * Trackers of recent latencies, mapped to the host they apply to
+	 */
+	protected final ConcurrentMap<String, LatencyTracker> latencyTrackers;
+
+	/**
+	 * Whether concurrent identical requests are coalesced
+	 */
+	protected final boolean coalesceRequests;
+
+	/**
+	 * The requests currently being performed, mapped to the key of the request
+	 * as returned by {@link ResponseStore#createKey(URL, Map)}
+	 */
+	protected final ConcurrentMap<String, CompletableFuture<HttpResponse>> inFlightRequests;
+
+	/**
+	 * Circuit breakers, mapped to the host they apply to
+	 */
+	protected final ConcurrentMap<String, CircuitBreaker> circuitBreakers;
+
+	/**
+	 * Token buckets limiting the rate of requests, mapped to the domain they
+	 * apply to
+	 */
+	protected final ConcurrentMap<String, RateLimiter> rateLimiters;
+
+	/**
+	 * The persistent response cache, or {@code null} if caching is disabled
+	 */
+	protected final ResponseCache responseCache;
+
+	/**
+	 * The archive responses are recorded to or replayed from, or {@code null}
+	 * if archiving is disabled
+	 */
+	protected final ResponseArchive responseArchive;
+
+	/**
+	 * The initial size of the buffer a response body is read into if the
+	 * server does not send a Content-Length header
+	 */
+	protected final static int DEFAULT_BUFFER_SIZE = 8192;
+
+	/**
+	 * The factor the Content-Length of a compressed response is multiplied
+	 * with to estimate the size of the decompressed body
+	 */
+	protected final static int COMPRESSION_RATIO_ESTIMATE = 4;
+
+	/**
+	 * Internal logging utility
+	 */
+	protected final Logger log = LoggerGenerator.getLogger();
+
+	/**
+	 * Constructs the HttpClient, reading its configuration from config and
+	 * configuring the JDK's connection pool accordingly.
+	 */
+	protected HttpClient() {
+		Properties config = ConfigReader.getConfig();
+
+		this.timeout = Integer.parseInt(config.getProperty("HttpClient.timeout", "60000"));
+		this.maxConnectionsPerHost = Integer.parseInt(config.getProperty(
+				"HttpClient.maxConnectionsPerHost", "32"));
+		this.maxRedirects = Integer.parseInt(config.getProperty("HttpClient.maxRedirects", "10"));
+		this.concurrencyControllers = new ConcurrentHashMap<String, ConcurrencyController>();
+		this.rateLimiters = new ConcurrentHashMap<String, RateLimiter>();
+		this.circuitBreakers = new ConcurrentHashMap<String, CircuitBreaker>();
+		this.inFlightRequests = new ConcurrentHashMap<String, CompletableFuture<HttpResponse>>();
+		this.coalesceRequests = Boolean.parseBoolean(config.getProperty(
+				"HttpClient.coalesceRequests", "true"));
+
+		this.latencyTrackers = new ConcurrentHashMap<String, LatencyTracker>();
+		this.hedgeableRequests = new AtomicLong();
+		this.hedgedRequests = new AtomicLong();
+		this.hedgingEnabled = Boolean.parseBoolean(config.getProperty(
+				"HttpClient.hedging.enabled", "false"));
+		this.hedgingPercentile = Double.parseDouble(config.getProperty(
+				"HttpClient.hedging.percentile", "95"));
+		this.hedgingMaxRatio = Double.parseDouble(config.getProperty(
+				"HttpClient.hedging.maxRatio", "0.05"));
+		this.hedgingMinSamples = Integer.parseInt(config.getProperty(
+				"HttpClient.hedging.minSamples", "20"));
+		this.hedgingExecutor = (this.hedgingEnabled ? Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "HttpClient-hedging");
+			thread.setDaemon(true);
+			return thread;
+		}) : null);
+
+		this.retryPolicy = new RetryPolicy(Integer.parseInt(config.getProperty(
+				"HttpClient.retry.maxAttempts", "4")), Long.parseLong(config.getProperty(
+				"HttpClient.retry.baseDelay", "500")), Long.parseLong(config.getProperty(
+				"HttpClient.retry.maxDelay", "30000")));
+		this.circuitBreakerThreshold = Integer.parseInt(config.getProperty(
+				"HttpClient.circuitBreaker.failureThreshold", "5"));
+		this.circuitBreakerOpenDuration = Long.parseLong(config.getProperty(
+				"HttpClient.circuitBreaker.openDuration", "30000"));
+
+		this.adaptiveConcurrency = Boolean.parseBoolean(config.getProperty(
+				"HttpClient.concurrency.adaptive", "true"));
+		this.initialConcurrency = Integer.parseInt(config.getProperty(
+				"HttpClient.concurrency.initialLimit", "8"));
+		this.minConcurrency = Integer.parseInt(config.getProperty(
+				"HttpClient.concurrency.minLimit", "1"));
+		this.backoffFactor = Double.parseDouble(config.getProperty(
+				"HttpClient.concurrency.backoffFactor", "0.5"));
+		this.latencyTolerance = Double.parseDouble(config.getProperty(
+				"HttpClient.concurrency.latencyTolerance", "2.0"));
+
+		String stateFile = config.getProperty("HttpClient.concurrency.stateFile", "").trim();
+		this.concurrencyStateFile = (stateFile.isEmpty() || !this.adaptiveConcurrency ? null
+				: new File(stateFile));
+		this.learnedLimits = this.loadLearnedLimits();
+
+		// Configure the keep-alive cache of HttpURLConnection, which is read
+		// once when the first connection is made
+		System.setProperty("http.keepAlive", "true");
+		System.setProperty("http.maxConnections", String.valueOf(this.maxConnectionsPerHost));
+
+		this.sslSocketFactory = this.createSSLSocketFactory(
+				Integer.parseInt(config.getProperty("HttpClient.tlsSessionCacheSize", "1000")),
+				Integer.parseInt(config.getProperty("HttpClient.tlsSessionTimeout", "3600")));
+
+		this.responseArchive = this.createResponseArchive(config);
+		this.responseCache = (this.responseArchive == null ? this.createResponseCache(config)
+				: null);
+	}
+
+	/**
+	 * Returns the single instance of this class, creating it if necessary.
+	 * 
+	 * @return the HttpClient instance
+	 */
+	public static synchronized HttpClient getInstance() {
+		if (instance == null) {
+			instance = new HttpClient();
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Performs a GET request for the given {@code url}, adding the passed
+	 * {@code headers} to the request. If a rate limit applies to the host of
+	 * {@code url}, the calling thread blocks until the request may be sent.
+	 * Redirects are followed. The response is
+	 * returned regardless of its status code; callers must check
+	 * {@link HttpResponse#isSuccessful()} if necessary.
+	 * 
+	 * If the response cache is enabled, a fresh cached response is returned
+	 * without sending a request, and a stale one is revalidated by a
+	 * conditional request. If a response archive is used, the response is
+	 * recorded to or replayed from the archive instead.
+	 * 
+	 * If an identical request (same URL and headers) is already being
+	 * performed by another thread, no new request is made; instead, the
+	 * calling thread waits for the other request and receives the same
+	 * response (or exception).
+	 * 
+	 * @param url
+	 *            the URL to call
+	 * @param headers
+	 *            the headers to pass when making the HTTP request, or
+	 *            {@code null}
+	 * @return the response
+	 * @throws IOException
+	 *             in case of any networking error
+	 */
+	public HttpResponse get(URL url, Map<String, String> headers) throws IOException {
+		return this.get(url, headers, false);
+	}
+
+	/**
+	 * Performs a GET request for the given {@code url} as described in
+	 * {@link #get(URL, Map)}. If {@code hedge} is {@code true} and hedging is
+	 * enabled, a second identical request is sent if the first one has not
+	 * been answered within the configured percentile of the latencies recently
+	 * observed for the host, as long as the hedging budget allows it. The
+	 * response arriving first is returned.
+	 * 
+	 * @param url
+	 *            the URL to call
+	 * @param headers
+	 *            the headers to pass when making the HTTP request, or
+	 *            {@code null}
+	 * @param hedge
+	 *            whether the request may be hedged
+	 * @return the response
+	 * @throws IOException
+	 *             in case of any networking error
+	 */
+	public HttpResponse get(URL url, Map<String, String> headers, boolean hedge)
+			throws IOException {
+		hedge = hedge && this.hedgingEnabled;
+
+		if (!this.coalesceRequests) {
+			return this.load(url, headers, hedge);
+		}
+
+		String key = ResponseStore.createKey(url, headers);
+		CompletableFuture<HttpResponse> future = new CompletableFuture<HttpResponse>();
+		CompletableFuture<HttpResponse> inFlight = this.inFlightRequests.putIfAbsent(key, future);
+
+		if (inFlight != null) {
+			this.log.finer("Waiting for identical request in flight for " + url);
+
+			try {
+				return this.await(inFlight, url);
+			}
+			catch (InterruptedIOException e) {
+				// The thread performing the request may have been interrupted
+				// (e.g. a cancelled prefetch), which must not fail this caller
+				if (e instanceof SocketTimeoutException || Thread.currentThread().isInterrupted()) {
+					throw e;
+				}
+
+				return this.load(url, headers, hedge);
+			}
+		}
+
+		try {
+			HttpResponse response = this.load(url, headers, hedge);
+			future.complete(response);
+			return response;
+		}
+		catch (Throwable e) {
+			future.completeExceptionally(e);
+			throw e;
+		}
+		finally {
+			this.inFlightRequests.remove(key, future);
+		}
+	}
+
+	/**
+	 * Waits for the request represented by {@code inFlight} (performed by
+	 * another thread) to complete and returns its result.
+	 * 
+	 * @param inFlight
+	 *            the request in flight
+	 * @param url
+	 *            the requested URL
+	 * @return the response
+	 * @throws IOException
+	 *             the exception the request failed with, or an
+	 *             InterruptedIOException if the calling thread is interrupted
+	 *             while waiting
+	 */
+	protected HttpResponse await(CompletableFuture<HttpResponse> inFlight, URL url)
+			throws IOException {
+		try {
+			return inFlight.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for " + url);
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * Obtains the response for a GET request for the given {@code url} from
+	 * the response archive, the response cache or the network, as described
+	 * in {@link #get(URL, Map)}.
+	 * 
+	 * @param url
+	 *            the URL to call
+	 * @param headers
+	 *            the headers to pass when making the HTTP request, or
+	 *            {@code null}
+	 * @param hedge
+	 *            whether the request may be hedged
+	 * @return the response
+	 * @throws IOException
+	 *             in case of any networking error
+	 */
+	protected HttpResponse load(URL url, Map<String, String> headers, boolean hedge)
+			throws IOException {
+		if (this.responseArchive != null) {
+			if (this.responseArchive.getMode() == ResponseArchive.Mode.REPLAY) {
+				return this.responseArchive.replay(url, headers);
+			}
+
+			HttpResponse response = this.execute(url, headers, hedge);
+			this.responseArchive.record(url, headers, response);
+			return response;
+		}
+
+		if (this.responseCache == null) {
+			return this.execute(url, headers, hedge);
+		}
+
+		String key = this.responseCache.getKey(url, headers);
+		ResponseStore.Entry entry = this.responseCache.lookup(key);
+
+		if (entry != null && this.responseCache.isFresh(entry)) {
+			this.log.finer("Serving " + url + " from cache");
+			return entry.getResponse();
+		}
+
+		HttpResponse response = this.execute(url, (entry == null ? headers : this.responseCache
+				.addValidators(headers, entry)), hedge);
+
+		return this.responseCache.update(key, entry, response);
+	}
+
+	/**
+	 * Sends a GET request for the given {@code url} to the network, retrying
+	 * it as decided by {@link #retryPolicy}. The request is checked against
+	 * the circuit breaker of the host once, and a single outcome is reported
+	 * to it after the last attempt: a success if the server answered with a
+	 * status that is not retried, a failure if all attempts failed. Requests
+	 * aborted by an interruption of the calling thread (e.g. cancelled
+	 * prefetches) are not reported as failures. If all attempts fail, the last
+	 * exception is thrown, or the last response is returned if the server
+	 * answered.
+	 * 
+	 * @param url
+	 *            the URL to call
+	 * @param headers
+	 *            the headers to pass when making the HTTP request, or
+	 *            {@code null}
+	 * @param hedge
+	 *            whether every attempt may be hedged
+	 * @return the response
+	 * @throws IOException
+	 *             in case of any networking error, or a
+	 *             {@link CircuitOpenException} if the circuit breaker of the
+	 *             host is open
+	 */
+	protected HttpResponse execute(URL url, Map<String, String> headers, boolean hedge)
+			throws IOException {
+		CircuitBreaker circuitBreaker = this.getCircuitBreaker(url.getHost());
+		boolean recorded = false;
+
+		circuitBreaker.beforeRequest();
+
+		try {
+			for (int attempt = 1;; attempt++) {
+				HttpResponse response;
+				long delay;
+
+				try {
+					response = (hedge ? this.sendHedged(url, headers) : this.send(url, headers));
+				}
+				catch (IOException e) {
+					if (!this.retryPolicy.isRetryable(e)) {
+						// Cancelled, neither success nor failure of the host
+						throw e;
+					}
+
+					delay = this.retryPolicy.getDelay(attempt, null);
+
+					if (delay < 0) {
+						circuitBreaker.recordFailure();
+						recorded = true;
+						throw e;
+					}
+
+					this.log.fine("Attempt " + attempt + " to fetch " + url + " failed ("
+							+ e.getMessage() + "), retrying in " + delay + " ms");
+					this.sleep(delay, url);
+					continue;
+				}
+
+				if (!this.retryPolicy.isRetryable(response.getStatusCode())) {
+					circuitBreaker.recordSuccess();
+					recorded = true;
+					return response;
+				}
+
+				delay = this.retryPolicy.getDelay(attempt, response.getHeader("Retry-After"));
+
+				if (delay < 0) {
+					circuitBreaker.recordFailure();
+					recorded = true;
+					return response;
+				}
+
+				this.log.fine("Attempt " + attempt + " to fetch " + url + " failed (HTTP status "
+						+ response.getStatusCode() + "), retrying in " + delay + " ms");
+				this.sleep(delay, url);
+			}
+		}
+		finally {
+			// Cancelled or failed unexpectedly: free a half-open breaker for
+			// the next trial request
+			if (!recorded) {
+				circuitBreaker.recordAborted();
+			}
+		}
+	}
+
+	/**
+	 * Blocks the calling thread for {@code delay} milliseconds before retrying
+	 * a request for {@code url}.
+	 * 
+	 * @param delay
+	 *            the time to wait in milliseconds
+	 * @param url
+	 *            the URL to be retried
+	 * @throws InterruptedIOException
+	 *             if the calling thread is interrupted while waiting
+	 */
+	protected void sleep(long delay, URL url) throws InterruptedIOException {
+		try {
+			TimeUnit.MILLISECONDS.sleep(delay);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting to retry " + url);
+		}
+	}
+
+	/**
+	 * Sends a GET request for the given {@code url} to the network, respecting
+	 * the limits on concurrent connections and the rate limit applying to the
+	 * host of {@code url}.
+	 * 
+	 * @param url
+	 *            the URL to call
+	 * @param headers
+	 *            the headers to pass when making the HTTP request, or
+	 *            {@code null}
+	 * @return the response
+	 * @throws IOException
+	 *             in case of any networking error
+	 */
+	protected HttpResponse send(URL url, Map<String, String> headers) throws IOException {
+		return this.send(url, headers, null);
+	}
+
+	/**
+	 * Sends a GET request like {@link #send(URL, Map)}, allowing it to be
+	 * cancelled via {@code handle}. A cancelled request neither adjusts the
+	 * concurrency limit of the host nor is its latency recorded, even if its
+	 * response arrived before it was cancelled.
+	 * 
+	 * @param url
+	 *            the URL to call
+	 * @param headers
+	 *            the headers to pass when making the HTTP request, or
+	 *            {@code null}
+	 * @param handle
+	 *            the handle to cancel the request with, or {@code null}
+	 * @return the response
+	 * @throws IOException
+	 *             in case of any networking error, or an
+	 *             InterruptedIOException if the request has been cancelled
+	 *             before being answered
+	 */
+	protected HttpResponse send(URL url, Map<String, String> headers, RequestHandle handle)
+			throws IOException {
+		ConcurrencyController controller = this.getConcurrencyController(url.getHost());
+		RateLimiter rateLimiter = this.getRateLimiter(url.getHost());
+
+		try {
+			controller.acquire();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a connection to "
+					+ url.getHost());
+		}
+
+		HttpResponse response = null;
+		boolean failed = false;
+
+		try {
+			// Wait for a token only after obtaining a connection permit, so
+			// that requests actually leave at the allowed rate
+			if (rateLimiter != null) {
+				rateLimiter.acquire();
+			}
+
+			try {
+				response = this.fetch(url, headers, handle);
+			}
+			catch (IOException e) {
+				// An interruption (e.g. a cancelled prefetch) or cancellation
+				// says nothing about the host, unlike a timeout
+				failed = (!(e instanceof InterruptedIOException)
+						|| e instanceof SocketTimeoutException) && !this.isCancelled(handle);
+				throw e;
+			}
+
+			if (!this.isCancelled(handle)) {
+				this.getLatencyTracker(url.getHost()).record(response.getLatency());
+			}
+
+			return response;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the rate limit of "
+					+ url.getHost());
+		}
+		finally {
+			if (this.isCancelled(handle)) {
+				controller.releaseUnsent();
+			}
+			else if (response != null) {
+				controller.release(response.getStatusCode(), response.getLatency());
+			}
+			else if (failed) {
+				controller.releaseFailed();
+			}
+			else {
+				controller.releaseUnsent();
+			}
+		}
+	}
+
+	/**
+	 * @param handle
+	 *            the handle of a request, or {@code null}
+	 * @return whether the request has been cancelled via {@code handle}
+	 */
+	protected boolean isCancelled(RequestHandle handle) {
+		return handle != null && handle.isCancelled();
+	}
+
+	/**
+	 * Sends a GET request for the given {@code url} to the network via
+	 * {@link #send(URL, Map)}, sending a second identical request if the
+	 * first one takes longer than the configured percentile of the latencies
+	 * recently observed for the host and the hedging budget allows it.
+	 * Returns the first successful response and cancels the other request
+	 * (see {@link RequestHandle}); if both requests fail, the exception of the
+	 * first request is thrown.
+	 * 
+	 * @param url
+	 *            the URL to call
+	 * @param headers
+	 *            the headers to pass when making the HTTP request, or
+	 *            {@code null}
+	 * @return the response
+	 * @throws IOException
+	 *             in case of any networking error
+	 */
+	protected HttpResponse sendHedged(URL url, Map<String, String> headers) throws IOException {
+		this.hedgeableRequests.incrementAndGet();
+		long hedgeDelay = this.getLatencyTracker(url.getHost()).getPercentile(
+				this.hedgingPercentile, this.hedgingMinSamples);
+
+		if (hedgeDelay < 0) {
+			return this.send(url, headers);
+		}
+
+		RequestHandle primaryHandle = new RequestHandle();
+		CompletableFuture<HttpResponse> primary = this.sendAsync(url, headers, primaryHandle);
+
+		try {
+			return this.await(primary, hedgeDelay, url);
+		}
+		catch (TimeoutException e) {
+			// Primary request is slow, hedge below if budget allows
+		}
+
+		if (this.hedgedRequests.get() >= this.hedgingMaxRatio * this.hedgeableRequests.get()) {
+			return this.await(primary, url);
+		}
+
+		this.hedgedRequests.incrementAndGet();
+		this.log.finer("Hedging request for " + url + " after " + hedgeDelay + " ms");
+
+		RequestHandle hedgedHandle = new RequestHandle();
+		CompletableFuture<HttpResponse> hedged = this.sendAsync(url, headers, hedgedHandle);
+		CompletableFuture<HttpResponse> first = new CompletableFuture<HttpResponse>();
+
+		// Complete with the first successful response, cancelling the losing
+		// request, or with the failure of the primary request once both have
+		// failed
+		primary.whenComplete((response, e) -> {
+			if (e == null) {
+				if (first.complete(response)) {
+					hedgedHandle.cancel();
+				}
+			}
+			else {
+				hedged.whenComplete((hedgedResponse, hedgedException) -> {
+					if (hedgedException == null) {
+						first.complete(hedgedResponse);
+					}
+					else {
+						first.completeExceptionally(e);
+					}
+				});
+			}
+		});
+		hedged.whenComplete((response, e) -> {
+			if (e == null && first.complete(response)) {
+				primaryHandle.cancel();
+			}
+		});
+
+		try {
+			return this.await(first, url);
+		}
+		catch (InterruptedIOException e) {
+			// Caller gave up: cancel both requests
+			primaryHandle.cancel();
+			hedgedHandle.cancel();
+			throw e;
+		}
+	}
+
+	/**
+	 * Sends a GET request via {@link #send(URL, Map, RequestHandle)} on
+	 * {@link #hedgingExecutor}.
+	 * 
+	 * @param url
+	 *            the URL to call
+	 * @param headers
+	 *            the headers to pass when making the HTTP request, or
+	 *            {@code null}
+	 * @param handle
+	 *            the handle to cancel the request with
+	 * @return the future holding the response
+	 */
+	protected CompletableFuture<HttpResponse> sendAsync(URL url, Map<String, String> headers,
+			RequestHandle handle) {
+		CompletableFuture<HttpResponse> future = new CompletableFuture<HttpResponse>();
+
+		this.hedgingExecutor.execute(() -> {
+			try {
+				future.complete(this.send(url, headers, handle));
+			}
+			catch (Throwable e) {
+				future.completeExceptionally(e);
+			}
+		});
+
+		return future;
+	}
+
+	/**
+	 * Waits up to {@code timeout} milliseconds for {@code future} to complete
+	 * and returns its result.
+	 * 
+	 * @param future
+	 *            the future to wait for
+	 * @param timeout
+	 *            the maximum time to wait in milliseconds
+	 * @param url
+	 *            the requested URL
+	 * @return the response
+	 * @throws IOException
+	 *             the exception the request failed with, or an
+	 *             InterruptedIOException if the calling thread is interrupted
+	 *             while waiting
+	 * @throws TimeoutException
+	 *             if the future did not complete in time
+	 */
+	protected HttpResponse await(CompletableFuture<HttpResponse> future, long timeout, URL url)
+			throws IOException, TimeoutException {
+		try {
+			return future.get(timeout, TimeUnit.MILLISECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for " + url);
+		}
+		catch (ExecutionException e) {
+			return this.await(future, url);
+		}
+	}
+
+	/**
+	 * Returns the tracker of recent latencies for {@code host}, creating it if
+	 * necessary.
+	 * 
+	 * @param host
+	 *            the host
+	 * @return the latency tracker for the given host
+	 */
+	protected LatencyTracker getLatencyTracker(String host) {
+		return this.latencyTrackers.computeIfAbsent(host, h -> new LatencyTracker());
+	}
+
+	/**
+	 * Limits the rate of requests sent to {@code domain} and all of its
+	 * subdomains (e.g. "spiegel.de" also applies to "www.spiegel.de") to
+	 * {@code requestsPerSecond}, allowing bursts of up to {@code burst}
+	 * requests. Replaces any rate limit previously set for {@code domain}. A
+	 * {@code requestsPerSecond} value of 0 or less removes the rate limit.
+	 * 
+	 * @param domain
+	 *            the domain to limit
+	 * @param requestsPerSecond
+	 *            the number of requests allowed per second
+	 * @param burst
+	 *            the maximum number of requests sent at once
+	 */
+	public void setRateLimit(String domain, double requestsPerSecond, int burst) {
+		domain = domain.toLowerCase();
+
+		if (requestsPerSecond <= 0) {
+			this.rateLimiters.remove(domain);
+			return;
+		}
+
+		this.rateLimiters.put(domain, new RateLimiter(requestsPerSecond, Math.max(1, burst)));
+		this.log.config("Rate limit for " + domain + " set to " + requestsPerSecond
+				+ " requests per second (burst " + burst + ")");
+	}
+
+	/**
+	 * Performs the actual network request, following up to
+	 * {@link #maxRedirects} redirects. Redirects are followed manually as
+	 * HttpURLConnection does not follow redirects switching between HTTP and
+	 * HTTPS.
+	 * 
+	 * @param url
+	 *            the URL to call
+	 * @param headers
+	 *            the headers to pass when making the HTTP request, or
+	 *            {@code null}
+	 * @return the response
+	 * @throws IOException
+	 *             in case of any networking error
+	 */
+	protected HttpResponse fetch(URL url, Map<String, String> headers) throws IOException {
+		return this.fetch(url, headers, null);
+	}
+
+	/**
+	 * Performs the actual network request like {@link #fetch(URL, Map)},
+	 * registering every connection used with {@code handle} while it is being
+	 * read, so that the request can be cancelled by another thread.
+	 * 
+	 * @param url
+	 *            the URL to call
+	 * @param headers
+	 *            the headers to pass when making the HTTP request, or
+	 *            {@code null}
+	 * @param handle
+	 *            the handle to cancel the request with, or {@code null}
+	 * @return the response
+	 * @throws IOException
+	 *             in case of any networking error, or an
+	 *             InterruptedIOException if the request has been cancelled
+	 */
+	protected HttpResponse fetch(URL url, Map<String, String> headers, RequestHandle handle)
+			throws IOException {
+		URL currentUrl = url;
+		long start = System.nanoTime();
+
+		for (int redirects = 0;; redirects++) {
+			HttpURLConnection con = this.openConnection(currentUrl, headers);
+
+			if (handle != null) {
+				handle.setConnection(con);
+			}
+
+			try {
+				HttpResponse response = this.fetchOnce(con, currentUrl, start,
+						redirects < this.maxRedirects);
+
+				if (response != null) {
+					return response;
+				}
+
+				currentUrl = new URL(currentUrl, con.getHeaderField("Location").replaceAll(" ",
+						"%20"));
+			}
+			finally {
+				if (handle != null) {
+					handle.setConnection(null);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the response to the request made via {@code con}.
+	 * 
+	 * @param con
+	 *            the configured connection
+	 * @param url
+	 *            the URL requested via {@code con}
+	 * @param start
+	 *            the time (as returned by {@link System#nanoTime()}) the
+	 *            request was started, including previous redirects
+	 * @param followRedirect
+	 *            whether a redirect may be followed
+	 * @return the response, or {@code null} if the response is a redirect to
+	 *         the URL in its {@code Location} header that is to be followed
+	 * @throws IOException
+	 *             in case of any networking error
+	 */
+	protected HttpResponse fetchOnce(HttpURLConnection con, URL url, long start,
+			boolean followRedirect) throws IOException {
+		int statusCode = con.getResponseCode();
+
+		if (statusCode == -1) {
+			throw new IOException("Invalid HTTP response when fetching " + url);
+		}
+
+		if (this.isRedirect(statusCode) && con.getHeaderField("Location") != null
+				&& followRedirect) {
+			// Read body of redirect response in order to allow the connection
+			// to be reused
+			this.readBody(con, statusCode);
+			return null;
+		}
+
+		byte[] body = this.readBody(con, statusCode);
+
+		return new HttpResponse(url, statusCode, con.getHeaderFields(), body,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+	}
+
+	/**
+	 * Opens and configures a connection to the given {@code url}.
+	 * 
+	 * @param url
+	 *            the URL to connect to
+	 * @param headers
+	 *            the headers to pass when making the HTTP request, or
+	 *            {@code null}
+	 * @return the configured, but not yet connected connection
+	 * @throws IOException
+	 *             in case of any networking error
+	 */
+	protected HttpURLConnection openConnection(URL url, Map<String, String> headers)
+			throws IOException {
+		HttpURLConnection con = (HttpURLConnection) url.openConnection();
+
+		if (con instanceof HttpsURLConnection) {
+			((HttpsURLConnection) con).setSSLSocketFactory(this.sslSocketFactory);
+		}
+
+		con.setConnectTimeout(this.timeout);
+		con.setReadTimeout(this.timeout);
+		con.setInstanceFollowRedirects(false);
+		con.setRequestProperty("Accept-Encoding", "gzip, deflate");
+
+		if (headers != null) {
+			for (Map.Entry<String, String> entry : headers.entrySet()) {
+				con.setRequestProperty(entry.getKey(), entry.getValue());
+			}
+		}
+
+		return con;
+	}
+
+	/**
+	 * Reads the entire body of the response to the request made via
+	 * {@code con} and closes the underlying stream, which returns the
+	 * connection to the pool of kept-alive connections. Bodies sent with
+	 * {@code Content-Encoding: gzip} or {@code deflate} are decompressed while
+	 * being read. The body is read into a single buffer presized from the
+	 * Content-Length header (if sent) that is only grown when necessary.
+	 * 
+	 * @param con
+	 *            the connection to read from
+	 * @param statusCode
+	 *            the status code of the response
+	 * @return the (decompressed) response body
+	 * @throws IOException
+	 *             in case of any networking error
+	 */
+	protected byte[] readBody(HttpURLConnection con, int statusCode) throws IOException {
+		InputStream in = (statusCode >= HttpURLConnection.HTTP_BAD_REQUEST ? con.getErrorStream()
+				: con.getInputStream());
+
+		if (in == null) {
+			return new byte[0];
+		}
+
+		String encoding = con.getContentEncoding();
+		boolean hasBody = statusCode != HttpURLConnection.HTTP_NO_CONTENT
+				&& statusCode != HttpURLConnection.HTTP_NOT_MODIFIED;
+		boolean compressed = hasBody && encoding != null
+				&& ("gzip".equalsIgnoreCase(encoding) || "deflate".equalsIgnoreCase(encoding));
+		long contentLength = con.getContentLengthLong();
+		Inflater inflater = null;
+
+		try {
+			if (compressed && "gzip".equalsIgnoreCase(encoding)) {
+				in = new GZIPInputStream(in, DEFAULT_BUFFER_SIZE);
+			}
+			else if (compressed) {
+				// "deflate" is specified as zlib-wrapped, but some servers send
+				// raw deflate data, so check for a zlib header first
+				PushbackInputStream pushbackIn = new PushbackInputStream(in, 2);
+				byte[] header = new byte[2];
+				int headerLength = pushbackIn.read(header);
+
+				if (headerLength > 0) {
+					pushbackIn.unread(header, 0, headerLength);
+				}
+
+				inflater = new Inflater(headerLength < 2 || !this.isZlibHeader(header));
+				in = new InflaterInputStream(pushbackIn, inflater, DEFAULT_BUFFER_SIZE);
+			}
+
+			int sizeHint = DEFAULT_BUFFER_SIZE;
+
+			if (contentLength > 0) {
+				sizeHint = (int) Math.min(Integer.MAX_VALUE - 8, compressed ? contentLength
+						* COMPRESSION_RATIO_ESTIMATE : contentLength);
+			}
+
+			return this.readFully(in, sizeHint);
+		}
+		finally {
+			if (inflater != null) {
+				inflater.end();
+			}
+
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads {@code in} until its end into a single byte array. The array is
+	 * initially allocated with {@code sizeHint} bytes and doubled whenever it
+	 * is full, so that (for a correct size hint) the body is copied only once
+	 * more, when trimming the array to the number of bytes read.
+	 * 
+	 * @param in
+	 *            the stream to read from
+	 * @param sizeHint
+	 *            the expected number of bytes
+	 * @return the bytes read
+	 * @throws IOException
+	 *             in case of any networking error
+	 */
+	protected byte[] readFully(InputStream in, int sizeHint) throws IOException {
+		// Allocate one more byte than expected to detect the end of the
+		// stream without having to grow the buffer
+		byte[] buffer = new byte[Math.max(1, sizeHint) + 1];
+		int length = 0;
+		int read;
+
+		while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+			length += read;
+
+			if (length == buffer.length) {
+				buffer = Arrays.copyOf(buffer, (int) Math.min(Integer.MAX_VALUE - 8,
+						buffer.length * 2L));
+			}
+		}
+
+		return (length == buffer.length ? buffer : Arrays.copyOf(buffer, length));
+	}
+
+	/**
+	 * Returns whether the two bytes passed form a valid zlib header (RFC 1950)
+	 * announcing deflate-compressed data.
+	 * 
+	 * @param header
+	 *            the first two bytes of the stream
+	 * @return whether the bytes form a zlib header
+	 */
+	protected boolean isZlibHeader(byte[] header) {
+		int cmf = header[0] & 0xFF;
+		int flg = header[1] & 0xFF;
+
+		return (cmf & 0x0F) == 8 && ((cmf << 8) | flg) % 31 == 0;
+	}
+
+	/**
+	 * Returns the controller limiting the number of concurrent connections to
+	 * {@code host}, creating it if necessary. A new controller starts with the
+	 * limit learned for {@code host} in a previous run, if any.
+	 * 
+	 * @param host
+	 *            the host
+	 * @return the controller for the given host
+	 */
+	protected ConcurrencyController getConcurrencyController(String host) {
+		ConcurrencyController controller = this.concurrencyControllers.get(host);
+
+		if (controller == null) {
+			double initialLimit = this.maxConnectionsPerHost;
+
+			if (this.adaptiveConcurrency) {
+				initialLimit = Double.parseDouble(this.learnedLimits.getProperty(host,
+						String.valueOf(this.initialConcurrency)));
+			}
+
+			ConcurrencyController newController = new ConcurrencyController(initialLimit,
+					this.minConcurrency, this.maxConnectionsPerHost, this.backoffFactor,
+					this.latencyTolerance, this.adaptiveConcurrency);
+			controller = this.concurrencyControllers.putIfAbsent(host, newController);
+
+			if (controller == null) {
+				controller = newController;
+			}
+		}
+
+		return controller;
+	}
+
+	/**
+	 * Returns the circuit breaker for {@code host}, creating it if necessary.
+	 * 
+	 * @param host
+	 *            the host
+	 * @return the circuit breaker for the given host
+	 */
+	protected CircuitBreaker getCircuitBreaker(String host) {
+		return this.circuitBreakers.computeIfAbsent(host, h -> new CircuitBreaker(h,
+				this.circuitBreakerThreshold, this.circuitBreakerOpenDuration));
+	}
+
+	/**
+	 * Reads the limits learned in previous runs from
+	 * {@link #concurrencyStateFile} and registers a shutdown hook saving the
+	 * limits learned in this run to the same file.
+	 * 
+	 * @return the learned limits, mapped to the host they apply to
+	 */
+	protected Properties loadLearnedLimits() {
+		Properties limits = new Properties();
+
+		if (this.concurrencyStateFile == null) {
+			return limits;
+		}
+
+		if (this.concurrencyStateFile.isFile()) {
+			try (FileReader reader = new FileReader(this.concurrencyStateFile)) {
+				limits.load(reader);
+			}
+			catch (IOException e) {
+				this.log.warning("Unable to read learned concurrency limits from "
+						+ this.concurrencyStateFile + ": " + e.getMessage());
+			}
+
+			// Discard invalid entries instead of failing on first use
+			for (String host : limits.stringPropertyNames()) {
+				try {
+					Double.parseDouble(limits.getProperty(host));
+				}
+				catch (NumberFormatException e) {
+					limits.remove(host);
+				}
+			}
+		}
+
+		Runtime.getRuntime().addShutdownHook(new Thread(this::saveLearnedLimits));
+		return limits;
+	}
+
+	/**
+	 * Saves the limits learned in this run (together with those learned in
+	 * previous runs for hosts not contacted in this run) to
+	 * {@link #concurrencyStateFile}.
+	 */
+	protected void saveLearnedLimits() {
+		Properties limits = new Properties();
+		limits.putAll(this.learnedLimits);
+
+		for (Map.Entry<String, ConcurrencyController> entry : this.concurrencyControllers
+				.entrySet()) {
+			limits.setProperty(entry.getKey(), String.valueOf(entry.getValue().getLimit()));
+		}
+
+		try (FileWriter writer = new FileWriter(this.concurrencyStateFile)) {
+			limits.store(writer, "Concurrency limits learned by HttpClient");
+		}
+		catch (IOException e) {
+			this.log.warning("Unable to save learned concurrency limits to "
+					+ this.concurrencyStateFile + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns the RateLimiter applying to {@code host}, i.e. the one set for
+	 * the most specific domain {@code host} belongs to, or {@code null} if the
+	 * rate of requests to {@code host} is not limited.
+	 * 
+	 * @param host
+	 *            the host
+	 * @return the RateLimiter for the given host or {@code null}
+	 */
+	protected RateLimiter getRateLimiter(String host) {
+		if (this.rateLimiters.isEmpty() || host == null) {
+			return null;
+		}
+
+		String domain = host.toLowerCase();
+
+		while (true) {
+			RateLimiter rateLimiter = this.rateLimiters.get(domain);
+
+			if (rateLimiter != null) {
+				return rateLimiter;
+			}
+
+			int dot = domain.indexOf('.');
+
+			if (dot == -1) {
+				return null;
+			}
+
+			domain = domain.substring(dot + 1);
+		}
+	}
+
+	/**
+	 * Returns whether the given status code denotes a redirect that should be
+	 * followed.
+	 * 
+	 * @param statusCode
+	 *            the status code to check
+	 * @return whether the status code denotes a redirect
+	 */
+	protected boolean isRedirect(int statusCode) {
+		return statusCode == HttpURLConnection.HTTP_MOVED_PERM
+				|| statusCode == HttpURLConnection.HTTP_MOVED_TEMP
+				|| statusCode == HttpURLConnection.HTTP_SEE_OTHER || statusCode == 307
+				|| statusCode == 308;
+	}
+
+	/**
+	 * Creates the response archive as configured by the HttpClient.archive.*
+	 * properties.
+	 * 
+	 * @param config
+	 *            the configuration
+	 * @return the response archive, or {@code null} if archiving is disabled
+	 *         or the archive directory cannot be used
+	 */
+	protected ResponseArchive createResponseArchive(Properties config) {
+		ResponseArchive.Mode mode;
+
+		try {
+			mode = ResponseArchive.Mode.valueOf(config.getProperty("HttpClient.archive.mode", "OFF")
+					.trim().toUpperCase());
+		}
+		catch (IllegalArgumentException e) {
+			this.log.warning("Invalid value for HttpClient.archive.mode, archiving disabled");
+			return null;
+		}
+
+		if (mode == ResponseArchive.Mode.OFF) {
+			return null;
+		}
+
+		File directory = new File(config.getProperty("HttpClient.archive.directory", "archive"));
+
+		try {
+			this.log.info("Using response archive in " + directory.getAbsolutePath() + " (mode "
+					+ mode + ")");
+			return new ResponseArchive(directory, mode, Boolean.parseBoolean(config.getProperty(
+					"HttpClient.archive.replayLatency", "true")));
+		}
+		catch (IOException e) {
+			this.log.warning("Unable to use response archive in " + directory.getAbsolutePath()
+					+ ", archiving disabled: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Creates the persistent response cache as configured by the
+	 * HttpClient.cache.* properties.
+	 * 
+	 * @param config
+	 *            the configuration
+	 * @return the response cache, or {@code null} if caching is disabled or
+	 *         the cache directory cannot be used
+	 */
+	protected ResponseCache createResponseCache(Properties config) {
+		if (!Boolean.parseBoolean(config.getProperty("HttpClient.cache.enabled", "false"))) {
+			return null;
+		}
+
+		File directory = new File(config.getProperty("HttpClient.cache.directory", "cache"));
+
+		try {
+			return new ResponseCache(directory, Long.parseLong(config.getProperty(
+					"HttpClient.cache.timeToLive", "3600")), Long.parseLong(config.getProperty(
+					"HttpClient.cache.maxSize", "536870912")));
+		}
+		catch (IOException e) {
+			this.log.warning("Unable to use response cache in " + directory.getAbsolutePath()
+					+ ", caching disabled: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Creates the SSLSocketFactory shared by all HTTPS connections, sizing the
+	 * TLS session cache of the default SSLContext as configured. In case the
+	 * default SSLContext cannot be obtained, the default SSLSocketFactory of
+	 * HttpsURLConnection is returned.
+	 * 
+	 * @param sessionCacheSize
+	 *            the maximum number of cached TLS sessions
+	 * @param sessionTimeout
+	 *            the time in seconds a cached TLS session may be resumed
+	 * @return the SSLSocketFactory to use for all HTTPS connections
+	 */
+	protected SSLSocketFactory createSSLSocketFactory(int sessionCacheSize, int sessionTimeout) {
+		try {
+			SSLContext context = SSLContext.getDefault();
+			SSLSessionContext sessionContext = context.getClientSessionContext();
+
+			if (sessionContext != null) {
+				sessionContext.setSessionCacheSize(sessionCacheSize);
+				sessionContext.setSessionTimeout(sessionTimeout);
+			}
+
+			return context.getSocketFactory();
+		}
+		catch (NoSuchAlgorithmException e) {
+			this.log.warning("Unable to configure TLS session cache: " + e.getMessage());
+			return HttpsURLConnection.getDefaultSSLSocketFactory();
+		}
+	}
+}
@@ -0,0 +1,196 @@
+package framework.http;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable representation of the response to an HTTP request performed by
+ * {@link HttpClient}. The response body has already been read entirely (and
+ * decompressed, if necessary) when an object of this class is created, so that
+ * the underlying connection could be returned to the connection pool.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class HttpResponse {
+	/**
+	 * The URL this response was actually obtained from. Differs from the
+	 * requested URL if any redirects were followed.
+	 */
+	protected final URL url;
+
+	/**
+	 * The HTTP status code of this response
+	 */
+	protected final int statusCode;
+
+	/**
+	 * The response headers, mapping header names to all values received for
+	 * the respective header
+	 */
+	protected final Map<String, List<String>> headers;
+
+	/**
+	 * The (decompressed) response body
+	 */
+	protected final byte[] body;
+
+	/**
+	 * The time in milliseconds it took to obtain this response from the
+	 * network, including any redirects followed
+	 */
+	protected final long latency;
+
+	/**
+	 * Constructs an HttpResponse with the given properties and a latency of 0.
+	 * 
+	 * @param url
+	 *            the URL the response was obtained from
+	 * @param statusCode
+	 *            the HTTP status code of the response
+	 * @param headers
+	 *            the response headers
+	 * @param body
+	 *            the response body
+	 */
+	public HttpResponse(URL url, int statusCode, Map<String, List<String>> headers, byte[] body) {
+		this(url, statusCode, headers, body, 0);
+	}
+
+	/**
+	 * Constructs an HttpResponse with the given properties.
+	 * 
+	 * @param url
+	 *            the URL the response was obtained from
+	 * @param statusCode
+	 *            the HTTP status code of the response
+	 * @param headers
+	 *            the response headers
+	 * @param body
+	 *            the response body
+	 * @param latency
+	 *            the time in milliseconds it took to obtain the response
+	 */
+	public HttpResponse(URL url, int statusCode, Map<String, List<String>> headers, byte[] body,
+			long latency) {
+		this.url = url;
+		this.statusCode = statusCode;
+		this.headers = (headers == null ? Collections.<String, List<String>> emptyMap()
+				: Collections.unmodifiableMap(headers));
+		this.body = body;
+		this.latency = latency;
+	}
+
+	/**
+	 * Returns the first value of the header {@code name}, matching the header
+	 * name case-insensitively, or {@code null} if no such header was received.
+	 * 
+	 * @param name
+	 *            the name of the header
+	 * @return the value of the header or {@code null}
+	 */
+	public String getHeader(String name) {
+		for (Map.Entry<String, List<String>> entry : this.headers.entrySet()) {
+			if (entry.getKey() != null && entry.getKey().equalsIgnoreCase(name)
+					&& !entry.getValue().isEmpty()) {
+				return entry.getValue().get(0);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the name of the charset specified in the {@code Content-Type}
+	 * header of this response, or {@code null} if no (supported) charset was
+	 * specified.
+	 * 
+	 * @return the charset name or {@code null}
+	 */
+	public String getCharset() {
+		String contentType = this.getHeader("Content-Type");
+
+		if (contentType == null) {
+			return null;
+		}
+
+		for (String parameter : contentType.split(";")) {
+			parameter = parameter.trim();
+
+			if (parameter.regionMatches(true, 0, "charset=", 0, 8)) {
+				String charset = parameter.substring(8).replace("\"", "").replace("'", "").trim();
+
+				try {
+					return (Charset.isSupported(charset) ? charset : null);
+				}
+				catch (IllegalCharsetNameException e) {
+					return null;
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the body of this response decoded using the charset specified in
+	 * the {@code Content-Type} header, or using UTF-8 if no (supported) charset
+	 * was specified.
+	 * 
+	 * @return the decoded response body
+	 */
+	public String getText() {
+		String charset = this.getCharset();
+		return new String(this.body, (charset == null ? StandardCharsets.UTF_8 : Charset
+				.forName(charset)));
+	}
+
+	/**
+	 * @return whether the status code of this response is in the 2xx range
+	 */
+	public boolean isSuccessful() {
+		return this.statusCode >= HttpURLConnection.HTTP_OK
+				&& this.statusCode < HttpURLConnection.HTTP_MULT_CHOICE;
+	}
+
+	/**
+	 * @return the url
+	 */
+	public URL getUrl() {
+		return this.url;
+	}
+
+	/**
+	 * @return the statusCode
+	 */
+	public int getStatusCode() {
+		return this.statusCode;
+	}
+
+	/**
+	 * @return the headers
+	 */
+	public Map<String, List<String>> getHeaders() {
+		return this.headers;
+	}
+
+	/**
+	 * @return the body
+	 */
+	public byte[] getBody() {
+		return this.body;
+	}
+
+	/**
+	 * @return the latency
+	 */
+	public long getLatency() {
+		return this.latency;
+	}
+}
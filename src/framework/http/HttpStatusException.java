@@ -0,0 +1,52 @@
+package framework.http;
+
+import java.io.IOException;
+
+/**
+ * Signals that an HTTP request was answered with a status code indicating that
+ * the request was not successful (i.e. a status code outside the 2xx range).
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class HttpStatusException extends IOException {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The status code the request was answered with
+	 */
+	protected final int statusCode;
+
+	/**
+	 * The URL that was requested
+	 */
+	protected final String url;
+
+	/**
+	 * Constructs an HttpStatusException for the given status code and URL.
+	 * 
+	 * @param statusCode
+	 *            the status code the request was answered with
+	 * @param url
+	 *            the URL that was requested
+	 */
+	public HttpStatusException(int statusCode, String url) {
+		super("HTTP status " + statusCode + " when fetching " + url);
+		this.statusCode = statusCode;
+		this.url = url;
+	}
+
+	/**
+	 * @return the statusCode
+	 */
+	public int getStatusCode() {
+		return this.statusCode;
+	}
+
+	/**
+	 * @return the url
+	 */
+	public String getUrl() {
+		return this.url;
+	}
+}
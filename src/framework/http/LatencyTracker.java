@@ -0,0 +1,67 @@
+package framework.http;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of the most recent responses received from a single host
+ * and computes percentiles of them. Used by {@link HttpClient} to decide when
+ * to hedge a slow request, and by {@link ConcurrencyController} to determine
+ * the baseline latency of a host.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class LatencyTracker {
+	/**
+	 * The number of latencies kept
+	 */
+	protected final static int WINDOW_SIZE = 256;
+
+	/**
+	 * Ring buffer holding the most recent latencies in milliseconds
+	 */
+	protected final long[] latencies = new long[WINDOW_SIZE];
+
+	/**
+	 * The total number of latencies recorded
+	 */
+	protected long count;
+
+	/**
+	 * Records the latency of a response.
+	 * 
+	 * @param latency
+	 *            the latency in milliseconds
+	 */
+	public synchronized void record(long latency) {
+		this.latencies[(int) (this.count % WINDOW_SIZE)] = latency;
+		this.count++;
+	}
+
+	/**
+	 * Returns the given {@code percentile} of the most recent latencies, or -1
+	 * if less than {@code minSamples} latencies have been recorded.
+	 * 
+	 * @param percentile
+	 *            the percentile to compute, between 0 and 100
+	 * @param minSamples
+	 *            the minimum number of latencies required
+	 * @return the percentile in milliseconds, or -1
+	 */
+	public long getPercentile(double percentile, int minSamples) {
+		long[] samples;
+
+		synchronized (this) {
+			if (this.count < Math.max(1, minSamples)) {
+				return -1;
+			}
+
+			samples = Arrays.copyOf(this.latencies, (int) Math.min(this.count, WINDOW_SIZE));
+		}
+
+		Arrays.sort(samples);
+		int index = (int) Math.ceil(percentile / 100 * samples.length) - 1;
+
+		return samples[Math.max(0, Math.min(samples.length - 1, index))];
+	}
+}
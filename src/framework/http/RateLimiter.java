@@ -0,0 +1,104 @@
+package framework.http;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket used by {@link HttpClient} to limit the rate of requests sent to
+ * a single host. The bucket holds up to {@code burst} tokens and is refilled
+ * continuously at {@code requestsPerSecond} tokens per second; every request
+ * takes one token. Tokens are reserved in the order requests arrive, so that a
+ * caller that has to wait knows exactly how long to sleep and the allowed rate
+ * is met exactly instead of being approximated by random delays.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class RateLimiter {
+	/**
+	 * The number of tokens added to the bucket per second
+	 */
+	protected final double requestsPerSecond;
+
+	/**
+	 * The maximum number of tokens the bucket can hold
+	 */
+	protected final double burst;
+
+	/**
+	 * The number of tokens currently in the bucket. Becomes negative if tokens
+	 * have been reserved ahead of time.
+	 */
+	protected double tokens;
+
+	/**
+	 * The time (as returned by {@link System#nanoTime()}) the bucket was last
+	 * refilled
+	 */
+	protected long lastRefill;
+
+	/**
+	 * Constructs a RateLimiter with the given rate and burst size. The bucket
+	 * is initially full.
+	 * 
+	 * @param requestsPerSecond
+	 *            the number of requests allowed per second, must be positive
+	 * @param burst
+	 *            the maximum number of requests that may be sent at once after
+	 *            a period of inactivity, must be at least 1
+	 */
+	public RateLimiter(double requestsPerSecond, int burst) {
+		if (requestsPerSecond <= 0 || burst < 1) {
+			throw new IllegalArgumentException("Invalid rate limit: " + requestsPerSecond
+					+ " requests per second, burst " + burst);
+		}
+
+		this.requestsPerSecond = requestsPerSecond;
+		this.burst = burst;
+		this.tokens = burst;
+		this.lastRefill = System.nanoTime();
+	}
+
+	/**
+	 * Takes one token from the bucket, blocking until it is available.
+	 * 
+	 * @throws InterruptedException
+	 *             if the calling thread is interrupted while waiting
+	 */
+	public void acquire() throws InterruptedException {
+		long waitNanos = this.reserve();
+
+		if (waitNanos > 0) {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+	}
+
+	/**
+	 * Refills the bucket according to the time elapsed since the last refill,
+	 * reserves one token and returns the time the caller has to wait until the
+	 * reserved token becomes available.
+	 * 
+	 * @return the time to wait in nanoseconds, or 0 if a token is available
+	 *         immediately
+	 */
+	protected synchronized long reserve() {
+		long now = System.nanoTime();
+
+		this.tokens = Math.min(this.burst, this.tokens + (now - this.lastRefill)
+				* this.requestsPerSecond / TimeUnit.SECONDS.toNanos(1));
+		this.lastRefill = now;
+		this.tokens -= 1;
+
+		if (this.tokens >= 0) {
+			return 0;
+		}
+
+		return (long) (-this.tokens / this.requestsPerSecond * TimeUnit.SECONDS.toNanos(1));
+	}
+
+	/**
+	 * @return the requestsPerSecond
+	 */
+	public double getRequestsPerSecond() {
+		return this.requestsPerSecond;
+	}
+}
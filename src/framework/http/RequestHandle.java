@@ -0,0 +1,65 @@
+package framework.http;
+
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+
+/**
+ * Handle used by {@link HttpClient} to cancel a request performed by another
+ * thread, e.g. the losing request of a hedged pair. Cancelling a request
+ * disconnects the connection it is currently reading from, so that the
+ * request fails promptly and its connection permit is freed; a request not
+ * yet connected fails as soon as it tries to connect.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class RequestHandle {
+	/**
+	 * The connection the request is currently using, or {@code null}
+	 */
+	protected HttpURLConnection connection;
+
+	/**
+	 * Whether the request has been cancelled
+	 */
+	protected boolean cancelled;
+
+	/**
+	 * Registers the connection the request is about to use, or unregisters it
+	 * by passing {@code null} once the response has been read.
+	 * 
+	 * @param connection
+	 *            the connection, or {@code null}
+	 * @throws InterruptedIOException
+	 *             if the request has been cancelled
+	 */
+	public synchronized void setConnection(HttpURLConnection connection)
+			throws InterruptedIOException {
+		if (this.cancelled && connection != null) {
+			throw new InterruptedIOException("Request cancelled");
+		}
+
+		this.connection = connection;
+	}
+
+	/**
+	 * Cancels the request, disconnecting the connection it is currently
+	 * using. Does nothing to a connection whose response has already been
+	 * read.
+	 */
+	public synchronized void cancel() {
+		this.cancelled = true;
+
+		if (this.connection != null) {
+			this.connection.disconnect();
+			this.connection = null;
+		}
+	}
+
+	/**
+	 * @return whether the request has been cancelled
+	 */
+	public synchronized boolean isCancelled() {
+		return this.cancelled;
+	}
+}
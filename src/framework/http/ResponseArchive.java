@@ -0,0 +1,139 @@
+package framework.http;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Archive of HTTP exchanges used by {@link HttpClient} to record all responses
+ * received from the network and to replay them later without network access.
+ * Recording a run and replaying it afterwards allows measuring the throughput
+ * of the application reproducibly, using identical inputs for every run.
+ * 
+ * In {@link Mode#RECORD}, every response (regardless of its status code) is
+ * stored together with the time it took to obtain it. In {@link Mode#REPLAY},
+ * no requests are sent at all: responses are served from the archive, and
+ * requests that were not recorded fail with an IOException. Optionally, the
+ * recorded latency is injected before a replayed response is returned.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class ResponseArchive {
+	/**
+	 * The modes an archive can be operated in
+	 */
+	public enum Mode {
+		/**
+		 * Requests are sent to the network, nothing is archived
+		 */
+		OFF,
+
+		/**
+		 * Requests are sent to the network, all responses are archived
+		 */
+		RECORD,
+
+		/**
+		 * Responses are served from the archive, no requests are sent
+		 */
+		REPLAY
+	}
+
+	/**
+	 * The store holding the archived responses
+	 */
+	protected final ResponseStore store;
+
+	/**
+	 * The mode of this archive, either RECORD or REPLAY
+	 */
+	protected final Mode mode;
+
+	/**
+	 * Whether the recorded latency is injected when replaying responses
+	 */
+	protected final boolean replayLatency;
+
+	/**
+	 * Constructs a ResponseArchive storing responses in {@code directory}.
+	 * 
+	 * @param directory
+	 *            the directory to store responses in
+	 * @param mode
+	 *            the mode of the archive, either RECORD or REPLAY
+	 * @param replayLatency
+	 *            whether the recorded latency is injected when replaying
+	 *            responses
+	 * @throws IOException
+	 *             if the directory cannot be created
+	 */
+	public ResponseArchive(File directory, Mode mode, boolean replayLatency) throws IOException {
+		if (mode == Mode.OFF) {
+			throw new IllegalArgumentException("An archive must either record or replay");
+		}
+
+		this.store = new ResponseStore(directory, 0);
+		this.mode = mode;
+		this.replayLatency = replayLatency;
+	}
+
+	/**
+	 * Stores {@code response}, received for a request for {@code url} with
+	 * the given {@code headers}, in the archive.
+	 * 
+	 * @param url
+	 *            the requested URL
+	 * @param headers
+	 *            the request headers, or {@code null}
+	 * @param response
+	 *            the response received from the network
+	 */
+	public void record(URL url, Map<String, String> headers, HttpResponse response) {
+		this.store.write(ResponseStore.createKey(url, headers), response);
+	}
+
+	/**
+	 * Returns the response recorded for a request for {@code url} with the
+	 * given {@code headers}, blocking for the recorded latency first if
+	 * configured.
+	 * 
+	 * @param url
+	 *            the requested URL
+	 * @param headers
+	 *            the request headers, or {@code null}
+	 * @return the recorded response
+	 * @throws IOException
+	 *             if no response was recorded for the request, or if the
+	 *             calling thread is interrupted while waiting
+	 */
+	public HttpResponse replay(URL url, Map<String, String> headers) throws IOException {
+		ResponseStore.Entry entry = this.store.read(ResponseStore.createKey(url, headers));
+
+		if (entry == null) {
+			throw new IOException("No recorded response for " + url);
+		}
+
+		if (this.replayLatency && entry.getResponse().getLatency() > 0) {
+			try {
+				TimeUnit.MILLISECONDS.sleep(entry.getResponse().getLatency());
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while replaying " + url);
+			}
+		}
+
+		return entry.getResponse();
+	}
+
+	/**
+	 * @return the mode
+	 */
+	public Mode getMode() {
+		return this.mode;
+	}
+}
@@ -0,0 +1,168 @@
+package framework.http;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistent cache of successful GET responses used by {@link HttpClient}.
+ * Responses are kept in a {@link ResponseStore} so that they survive between
+ * runs of the application.
+ * 
+ * A cached response younger than the configured time to live is served without
+ * contacting the server. An older response is revalidated: the request is sent
+ * with {@code If-None-Match} and {@code If-Modified-Since} headers built from
+ * the validators stored with the response, and if the server answers with
+ * {@code 304 Not Modified}, the cached body is served and its age is reset.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class ResponseCache {
+	/**
+	 * The store holding the cached responses
+	 */
+	protected final ResponseStore store;
+
+	/**
+	 * The time in milliseconds a cached response is served without
+	 * revalidation
+	 */
+	protected final long timeToLive;
+
+	/**
+	 * Constructs a ResponseCache storing responses in {@code directory}.
+	 * 
+	 * @param directory
+	 *            the directory to store responses in
+	 * @param timeToLive
+	 *            the time in seconds a cached response is served without
+	 *            revalidation
+	 * @param maxSize
+	 *            the maximum total size of all cached responses in bytes, or 0
+	 *            if the cache should not be bounded
+	 * @throws IOException
+	 *             if the directory cannot be created
+	 */
+	public ResponseCache(File directory, long timeToLive, long maxSize) throws IOException {
+		this.store = new ResponseStore(directory, maxSize);
+		this.store.deleteOutdated();
+		this.timeToLive = TimeUnit.SECONDS.toMillis(Math.max(0, timeToLive));
+	}
+
+	/**
+	 * Returns the key a response to a request for {@code url} with the given
+	 * {@code headers} is cached under.
+	 * 
+	 * @param url
+	 *            the requested URL
+	 * @param headers
+	 *            the request headers, or {@code null}
+	 * @return the cache key
+	 * @see ResponseStore#createKey(URL, Map)
+	 */
+	public String getKey(URL url, Map<String, String> headers) {
+		return ResponseStore.createKey(url, headers);
+	}
+
+	/**
+	 * Returns the response cached under {@code key}, regardless of its age.
+	 * 
+	 * @param key
+	 *            the cache key
+	 * @return the cached entry or {@code null}
+	 */
+	public ResponseStore.Entry lookup(String key) {
+		return this.store.read(key);
+	}
+
+	/**
+	 * Returns whether {@code entry} may be served without revalidation.
+	 * 
+	 * @param entry
+	 *            the cached entry
+	 * @return whether the entry is fresh
+	 */
+	public boolean isFresh(ResponseStore.Entry entry) {
+		return System.currentTimeMillis() - entry.getStoredAt() < this.timeToLive;
+	}
+
+	/**
+	 * Returns a copy of {@code headers} extended by the conditional request
+	 * headers matching the validators of {@code entry}, or {@code headers}
+	 * itself if the entry has no validators.
+	 * 
+	 * @param headers
+	 *            the request headers, or {@code null}
+	 * @param entry
+	 *            the cached entry to revalidate
+	 * @return the headers to send
+	 */
+	public Map<String, String> addValidators(Map<String, String> headers, ResponseStore.Entry entry) {
+		String eTag = entry.getResponse().getHeader("ETag");
+		String lastModified = entry.getResponse().getHeader("Last-Modified");
+
+		if (eTag == null && lastModified == null) {
+			return headers;
+		}
+
+		Map<String, String> conditionalHeaders = (headers == null ? new HashMap<String, String>()
+				: new HashMap<String, String>(headers));
+
+		if (eTag != null) {
+			conditionalHeaders.put("If-None-Match", eTag);
+		}
+
+		if (lastModified != null) {
+			conditionalHeaders.put("If-Modified-Since", lastModified);
+		}
+
+		return conditionalHeaders;
+	}
+
+	/**
+	 * Handles the {@code response} received from the network for a request
+	 * cached under {@code key}. If the response confirms that {@code entry} is
+	 * still valid, the age of the entry is reset and the cached response is
+	 * returned. Otherwise, a cacheable response is stored and returned as is.
+	 * 
+	 * @param key
+	 *            the cache key
+	 * @param entry
+	 *            the cached entry that was revalidated, or {@code null}
+	 * @param response
+	 *            the response received from the network
+	 * @return the response to return to the caller
+	 */
+	public HttpResponse update(String key, ResponseStore.Entry entry, HttpResponse response) {
+		if (entry != null && response.getStatusCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+			this.store.touch(key, entry);
+			return entry.getResponse();
+		}
+
+		if (this.isCacheable(response)) {
+			this.store.write(key, response);
+		}
+
+		return response;
+	}
+
+	/**
+	 * Returns whether {@code response} may be cached, i.e. whether it is a
+	 * {@code 200 OK} response the server did not forbid to store.
+	 * 
+	 * @param response
+	 *            the response
+	 * @return whether the response may be cached
+	 */
+	protected boolean isCacheable(HttpResponse response) {
+		String cacheControl = response.getHeader("Cache-Control");
+
+		return response.getStatusCode() == HttpURLConnection.HTTP_OK
+				&& (cacheControl == null || !cacheControl.toLowerCase().contains("no-store"));
+	}
+}
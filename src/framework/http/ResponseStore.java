@@ -0,0 +1,475 @@
+package framework.http;
+
+import framework.helpers.LoggerGenerator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Directory-based store persisting {@link HttpResponse} objects to disk. Every
+ * response is stored in its own file, named after the SHA-256 hash of the key
+ * it is stored under, together with the time it was stored and the latency of
+ * the original request.
+ * 
+ * As keys and URLs may contain credentials (e.g. the API keys passed as query
+ * parameters), keys are only stored as their hash, and query parameters
+ * holding credentials (see {@link #CREDENTIAL_PARAMETERS}) are removed from
+ * the stored URL of the response.
+ * 
+ * The total size of the store can be bounded: whenever it is exceeded, the
+ * least recently used entries are deleted until the store has shrunk to 90% of
+ * its maximum size. Reading an entry marks it as used by updating the
+ * modification time of its file.
+ * 
+ * Entries are written to a temporary file first and then moved into place, so
+ * that concurrent readers (or a crash) never observe partially written
+ * entries.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class ResponseStore {
+	/**
+	 * Version of the file format, stored at the beginning of every entry.
+	 * Entries of version 1 stored the plain key and URL and can still be read.
+	 */
+	protected final static int FORMAT_VERSION = 2;
+
+	/**
+	 * Names of query parameters holding credentials, which are removed from
+	 * stored URLs
+	 */
+	protected final static Pattern CREDENTIAL_PARAMETERS = Pattern.compile(
+			"api[-_]?key|access[-_]?token|token|key|secret|password", Pattern.CASE_INSENSITIVE);
+
+	/**
+	 * File name extension of entry files
+	 */
+	protected final static String EXTENSION = ".response";
+
+	/**
+	 * The directory the entries are stored in
+	 */
+	protected final File directory;
+
+	/**
+	 * The maximum total size of all entries in bytes, or 0 if unbounded
+	 */
+	protected final long maxSize;
+
+	/**
+	 * The current total size of all entries in bytes
+	 */
+	protected final AtomicLong size;
+
+	/**
+	 * Internal logging utility
+	 */
+	protected final Logger log = LoggerGenerator.getLogger();
+
+	/**
+	 * Constructs a ResponseStore using {@code directory}, creating the
+	 * directory if necessary.
+	 * 
+	 * @param directory
+	 *            the directory to store entries in
+	 * @param maxSize
+	 *            the maximum total size of all entries in bytes, or 0 if the
+	 *            store should not be bounded
+	 * @throws IOException
+	 *             if the directory cannot be created
+	 */
+	public ResponseStore(File directory, long maxSize) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Unable to create directory " + directory.getAbsolutePath());
+		}
+
+		this.directory = directory;
+		this.maxSize = Math.max(0, maxSize);
+		this.size = new AtomicLong();
+
+		for (File file : this.listEntries()) {
+			this.size.addAndGet(file.length());
+		}
+	}
+
+	/**
+	 * Returns the key a response to a request for {@code url} with the given
+	 * {@code headers} should be stored under. As request headers (e.g. the User
+	 * Agent) may influence the response, they are part of the key.
+	 * 
+	 * @param url
+	 *            the requested URL
+	 * @param headers
+	 *            the request headers, or {@code null}
+	 * @return the key
+	 */
+	public static String createKey(URL url, Map<String, String> headers) {
+		StringBuilder key = new StringBuilder(url.toExternalForm());
+
+		if (headers != null) {
+			for (Map.Entry<String, String> header : new TreeMap<String, String>(headers)
+					.entrySet()) {
+				key.append('\n').append(header.getKey().toLowerCase()).append(": ")
+						.append(header.getValue());
+			}
+		}
+
+		return key.toString();
+	}
+
+	/**
+	 * Reads the entry stored under {@code key}.
+	 * 
+	 * @param key
+	 *            the key of the entry
+	 * @return the entry or {@code null} if no (readable) entry is stored under
+	 *         {@code key}
+	 */
+	public Entry read(String key) {
+		File file = this.getFile(key);
+
+		if (!file.isFile()) {
+			return null;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file)))) {
+			// Version 1 stored the plain key
+			int version = in.readInt();
+			String storedKey = (version == 1 ? key : ResponseStore.hash(key));
+
+			if ((version != 1 && version != FORMAT_VERSION) || !storedKey.equals(in.readUTF())) {
+				return null;
+			}
+
+			long storedAt = in.readLong();
+			long latency = in.readLong();
+			URL url = new URL(in.readUTF());
+			int statusCode = in.readInt();
+
+			int numHeaders = in.readInt();
+			Map<String, List<String>> headers = new LinkedHashMap<String, List<String>>();
+
+			for (int i = 0; i < numHeaders; i++) {
+				String name = in.readUTF();
+				int numValues = in.readInt();
+				List<String> values = new ArrayList<String>(numValues);
+
+				for (int j = 0; j < numValues; j++) {
+					values.add(in.readUTF());
+				}
+
+				headers.put(name, values);
+			}
+
+			byte[] body = new byte[in.readInt()];
+			in.readFully(body);
+
+			// Mark entry as recently used
+			file.setLastModified(System.currentTimeMillis());
+
+			return new Entry(new HttpResponse(url, statusCode, headers, body, latency), storedAt);
+		}
+		catch (IOException e) {
+			this.log.warning("Unable to read stored response " + file.getName() + ": "
+					+ e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Stores {@code response} under {@code key}, replacing any entry
+	 * previously stored under {@code key}. Failures are logged, but not
+	 * propagated, as the store is only an optimization.
+	 * 
+	 * @param key
+	 *            the key to store the response under
+	 * @param response
+	 *            the response to store
+	 */
+	public void write(String key, HttpResponse response) {
+		File file = this.getFile(key);
+		File tempFile = null;
+
+		try {
+			tempFile = File.createTempFile("tmp", ".part", this.directory);
+
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(tempFile)))) {
+				out.writeInt(FORMAT_VERSION);
+				out.writeUTF(ResponseStore.hash(key));
+				out.writeLong(System.currentTimeMillis());
+				out.writeLong(response.getLatency());
+				out.writeUTF(ResponseStore.stripCredentials(response.getUrl().toExternalForm()));
+				out.writeInt(response.getStatusCode());
+
+				// The status line is stored under the null key by
+				// HttpURLConnection and cannot be written
+				Map<String, List<String>> headers = new LinkedHashMap<String, List<String>>(
+						response.getHeaders());
+				headers.remove(null);
+				out.writeInt(headers.size());
+
+				for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+					out.writeUTF(header.getKey());
+					out.writeInt(header.getValue().size());
+
+					for (String value : header.getValue()) {
+						out.writeUTF(value);
+					}
+				}
+
+				out.writeInt(response.getBody().length);
+				out.write(response.getBody());
+			}
+
+			long oldLength = file.length();
+			long newLength = tempFile.length();
+
+			try {
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+						StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			tempFile = null;
+
+			if (this.size.addAndGet(newLength - oldLength) > this.maxSize && this.maxSize > 0) {
+				this.evict();
+			}
+		}
+		catch (IOException e) {
+			this.log.warning("Unable to store response for " + response.getUrl() + ": "
+					+ e.getMessage());
+		}
+		finally {
+			if (tempFile != null) {
+				tempFile.delete();
+			}
+		}
+	}
+
+	/**
+	 * Updates the time the entry stored under {@code key} was stored to the
+	 * current time, leaving the stored response unchanged.
+	 * 
+	 * @param key
+	 *            the key of the entry
+	 * @param entry
+	 *            the entry as previously read via {@link #read(String)}
+	 */
+	public void touch(String key, Entry entry) {
+		this.write(key, entry.getResponse());
+	}
+
+	/**
+	 * Deletes the least recently used entries until the total size of the
+	 * store has shrunk to 90% of {@link #maxSize}.
+	 */
+	protected synchronized void evict() {
+		long targetSize = this.maxSize / 10 * 9;
+
+		if (this.size.get() <= targetSize) {
+			return;
+		}
+
+		List<File> files = this.listEntries();
+		final Map<File, Long> lastModified = new LinkedHashMap<File, Long>();
+
+		for (File file : files) {
+			lastModified.put(file, file.lastModified());
+		}
+
+		files.sort(Comparator.comparing(lastModified::get));
+		int evicted = 0;
+
+		for (File file : files) {
+			if (this.size.get() <= targetSize) {
+				break;
+			}
+
+			long length = file.length();
+
+			if (file.delete()) {
+				this.size.addAndGet(-length);
+				evicted++;
+			}
+		}
+
+		this.log.fine("Evicted " + evicted + " stored responses from " + this.directory);
+	}
+
+	/**
+	 * Deletes all entries stored in an older file format, which may contain
+	 * credentials in plain text.
+	 */
+	public synchronized void deleteOutdated() {
+		int deleted = 0;
+
+		for (File file : this.listEntries()) {
+			int version;
+
+			try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+				version = in.readInt();
+			}
+			catch (IOException e) {
+				version = -1;
+			}
+
+			long length = file.length();
+
+			if (version != FORMAT_VERSION && file.delete()) {
+				this.size.addAndGet(-length);
+				deleted++;
+			}
+		}
+
+		if (deleted > 0) {
+			this.log.info("Deleted " + deleted + " outdated stored responses from "
+					+ this.directory);
+		}
+	}
+
+	/**
+	 * Removes all query parameters holding credentials (see
+	 * {@link #CREDENTIAL_PARAMETERS}) from {@code url}.
+	 * 
+	 * @param url
+	 *            the URL
+	 * @return the URL without credentials
+	 */
+	protected static String stripCredentials(String url) {
+		int start = url.indexOf('?');
+
+		if (start == -1) {
+			return url;
+		}
+
+		int end = url.indexOf('#', start);
+		end = (end == -1 ? url.length() : end);
+		StringBuilder query = new StringBuilder();
+
+		for (String parameter : url.substring(start + 1, end).split("&")) {
+			if (!parameter.isEmpty()
+					&& !CREDENTIAL_PARAMETERS.matcher(parameter.split("=", 2)[0]).matches()) {
+				query.append(query.length() == 0 ? '?' : '&').append(parameter);
+			}
+		}
+
+		return url.substring(0, start) + query + url.substring(end);
+	}
+
+	/**
+	 * @return all entry files currently in the store
+	 */
+	protected List<File> listEntries() {
+		File[] files = this.directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+		return (files == null ? new ArrayList<File>() : new ArrayList<File>(Arrays.asList(files)));
+	}
+
+	/**
+	 * Returns the file the entry for {@code key} is stored in.
+	 * 
+	 * @param key
+	 *            the key of the entry
+	 * @return the file of the entry
+	 */
+	protected File getFile(String key) {
+		return new File(this.directory, ResponseStore.hash(key) + EXTENSION);
+	}
+
+	/**
+	 * Returns the SHA-256 hash of {@code key} as a hexadecimal string.
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the hash of the key
+	 */
+	protected static String hash(String key) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			StringBuilder hash = new StringBuilder();
+
+			for (byte b : digest.digest(key.getBytes(StandardCharsets.UTF_8))) {
+				hash.append(String.format("%02x", b));
+			}
+
+			return hash.toString();
+		}
+		catch (NoSuchAlgorithmException e) {
+			// Every JVM is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * A response read from the store, together with the time it was stored.
+	 * 
+	 * @author Jan Helge Wolf
+	 * 
+	 */
+	public static class Entry {
+		/**
+		 * The stored response
+		 */
+		protected final HttpResponse response;
+
+		/**
+		 * The time (in milliseconds since the epoch) the response was stored
+		 */
+		protected final long storedAt;
+
+		/**
+		 * Constructs an Entry with the given properties.
+		 * 
+		 * @param response
+		 *            the stored response
+		 * @param storedAt
+		 *            the time the response was stored
+		 */
+		public Entry(HttpResponse response, long storedAt) {
+			this.response = response;
+			this.storedAt = storedAt;
+		}
+
+		/**
+		 * @return the response
+		 */
+		public HttpResponse getResponse() {
+			return this.response;
+		}
+
+		/**
+		 * @return the storedAt
+		 */
+		public long getStoredAt() {
+			return this.storedAt;
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package framework.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides whether and when {@link HttpClient} retries a failed request.
+ * 
+ * Requests failing with a network error (except for interruptions) and
+ * requests answered with HTTP 429, 500, 502, 503 or 504 are retried up to
+ * {@code maxAttempts} attempts in total. The delay before a retry is chosen
+ * using exponential backoff with full jitter, i.e. uniformly at random between
+ * 0 and {@code min(maxDelay, baseDelay * 2^(attempt - 1))}, so that clients
+ * failing at the same time do not retry at the same time. If the server sends
+ * a {@code Retry-After} header, the delay is at least as long as requested;
+ * if the server requests a delay longer than {@code maxDelay}, the request is
+ * not retried.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class RetryPolicy {
+	/**
+	 * The maximum number of attempts per request, including the first one
+	 */
+	protected final int maxAttempts;
+
+	/**
+	 * The delay in milliseconds the exponential backoff starts with
+	 */
+	protected final long baseDelay;
+
+	/**
+	 * The maximum delay in milliseconds before a retry
+	 */
+	protected final long maxDelay;
+
+	/**
+	 * Constructs a RetryPolicy with the given settings.
+	 * 
+	 * @param maxAttempts
+	 *            the maximum number of attempts per request, 1 disables
+	 *            retries
+	 * @param baseDelay
+	 *            the delay in milliseconds the exponential backoff starts with
+	 * @param maxDelay
+	 *            the maximum delay in milliseconds before a retry
+	 */
+	public RetryPolicy(int maxAttempts, long baseDelay, long maxDelay) {
+		this.maxAttempts = Math.max(1, maxAttempts);
+		this.baseDelay = Math.max(0, baseDelay);
+		this.maxDelay = Math.max(this.baseDelay, maxDelay);
+	}
+
+	/**
+	 * Returns whether a request answered with {@code statusCode} should be
+	 * retried.
+	 * 
+	 * @param statusCode
+	 *            the status code of the response
+	 * @return whether the request should be retried
+	 */
+	public boolean isRetryable(int statusCode) {
+		return statusCode == 429 || statusCode == HttpURLConnection.HTTP_INTERNAL_ERROR
+				|| statusCode == HttpURLConnection.HTTP_BAD_GATEWAY
+				|| statusCode == HttpURLConnection.HTTP_UNAVAILABLE
+				|| statusCode == HttpURLConnection.HTTP_GATEWAY_TIMEOUT;
+	}
+
+	/**
+	 * Returns whether a request failing with {@code e} should be retried.
+	 * 
+	 * @param e
+	 *            the exception the request failed with
+	 * @return whether the request should be retried
+	 */
+	public boolean isRetryable(IOException e) {
+		if (e instanceof CircuitOpenException) {
+			return false;
+		}
+
+		// SocketTimeoutException extends InterruptedIOException, but denotes
+		// a network error rather than an interruption of the calling thread
+		return !(e instanceof InterruptedIOException) || e instanceof SocketTimeoutException;
+	}
+
+	/**
+	 * Returns the delay before the retry following attempt number
+	 * {@code attempt}, or -1 if the request should not be retried.
+	 * 
+	 * @param attempt
+	 *            the number of the failed attempt, starting at 1
+	 * @param retryAfter
+	 *            the value of the {@code Retry-After} header of the response,
+	 *            or {@code null}
+	 * @return the delay in milliseconds, or -1
+	 */
+	public long getDelay(int attempt, String retryAfter) {
+		if (attempt >= this.maxAttempts) {
+			return -1;
+		}
+
+		long backoff = this.baseDelay << Math.min(attempt - 1, 30);
+		long delay = ThreadLocalRandom.current().nextLong(Math.min(this.maxDelay, backoff) + 1);
+		long requestedDelay = this.parseRetryAfter(retryAfter);
+
+		if (requestedDelay > this.maxDelay) {
+			return -1;
+		}
+
+		return Math.max(delay, requestedDelay);
+	}
+
+	/**
+	 * Parses the value of a {@code Retry-After} header, given either as a
+	 * number of seconds or as an HTTP date.
+	 * 
+	 * @param retryAfter
+	 *            the header value, or {@code null}
+	 * @return the requested delay in milliseconds, or 0 if none was requested
+	 *         or the value could not be parsed
+	 */
+	protected long parseRetryAfter(String retryAfter) {
+		if (retryAfter == null || retryAfter.trim().isEmpty()) {
+			return 0;
+		}
+
+		retryAfter = retryAfter.trim();
+
+		try {
+			return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(retryAfter)));
+		}
+		catch (NumberFormatException e) {
+			// Not a number of seconds, try HTTP date below
+		}
+
+		try {
+			ZonedDateTime date = ZonedDateTime.parse(retryAfter,
+					DateTimeFormatter.RFC_1123_DATE_TIME);
+			return Math.max(0, Duration.between(ZonedDateTime.now(date.getZone()), date)
+					.toMillis());
+		}
+		catch (DateTimeParseException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * @return the maxAttempts
+	 */
+	public int getMaxAttempts() {
+		return this.maxAttempts;
+	}
+}
@@ -0,0 +1,261 @@
+package framework.results;
+
+import framework.articles.Article;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Reads the JSON output of an API into {@link ApiResult} objects. Readers are
+ * created once per combination of result class and root element (see
+ * {@link #forResult(Class, String)}) and share a single ObjectMapper, so that
+ * Jackson's (expensive) introspection of the result and article classes is
+ * performed only once.
+ * 
+ * Besides reading entire results, a reader can stream the articles of a result
+ * (see {@link #stream(InputStream, Consumer)}): the articles are deserialized
+ * one by one and handed to a consumer as soon as they are parsed, instead of
+ * first building a list of all articles of the page.
+ * 
+ * @author Jan Helge Wolf
+ * 
+ */
+public class ApiResultReader {
+	/**
+	 * The ObjectMapper shared by all readers
+	 */
+	protected final static ObjectMapper mapper = new ObjectMapper();
+
+	/**
+	 * The readers created, mapped by result class and root element
+	 */
+	private final static ConcurrentMap<String, ApiResultReader> readers = new ConcurrentHashMap<String, ApiResultReader>();
+
+	/**
+	 * The name of the JSON property the result is wrapped into, or
+	 * {@code null}
+	 */
+	protected final String rootElement;
+
+	/**
+	 * The reader for entire results, unwrapping {@link #rootElement}
+	 */
+	protected final ObjectReader resultReader;
+
+	/**
+	 * The reader for results without root element and articles, used when
+	 * streaming
+	 */
+	protected final ObjectReader unwrappedResultReader;
+
+	/**
+	 * The name of the JSON property holding the articles, or {@code null} if
+	 * it cannot be determined, in which case streaming is not supported
+	 */
+	protected final String articlesProperty;
+
+	/**
+	 * The reader for single articles, or {@code null} if streaming is not
+	 * supported
+	 */
+	protected final ObjectReader articleReader;
+
+	/**
+	 * Constructs an ApiResultReader for {@code resultClass}.
+	 * 
+	 * @param resultClass
+	 *            the class representing the result of a call to the respective
+	 *            API
+	 * @param rootElement
+	 *            the name of the JSON property the result is wrapped into (e.g.
+	 *            "response") or {@code null} if the result is not wrapped
+	 */
+	@SuppressWarnings("deprecation")
+	protected ApiResultReader(Class<? extends ApiResult> resultClass, String rootElement) {
+		this.rootElement = rootElement;
+		this.unwrappedResultReader = mapper.reader(resultClass);
+		this.resultReader = (rootElement == null ? this.unwrappedResultReader
+				: this.unwrappedResultReader.withRootName(rootElement));
+
+		// Find the collection of articles declared by the result class
+		String property = null;
+		Class<?> articleClass = null;
+
+		for (Class<?> c = resultClass; c != null && property == null; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				Class<?> elementClass = this.getArticleElementClass(field);
+
+				if (elementClass != null) {
+					JsonProperty annotation = field.getAnnotation(JsonProperty.class);
+					property = (annotation != null && !annotation.value().isEmpty() ? annotation
+							.value() : field.getName());
+					articleClass = elementClass;
+					break;
+				}
+			}
+		}
+
+		this.articlesProperty = property;
+		this.articleReader = (articleClass == null ? null : mapper.reader(articleClass));
+	}
+
+	/**
+	 * Returns the reader for {@code resultClass} and {@code rootElement},
+	 * creating it on first use.
+	 * 
+	 * @param resultClass
+	 *            the class representing the result of a call to the respective
+	 *            API
+	 * @param rootElement
+	 *            the name of the JSON property the result is wrapped into (e.g.
+	 *            "response") or {@code null} if the result is not wrapped
+	 * @return the reader
+	 */
+	public static ApiResultReader forResult(Class<? extends ApiResult> resultClass,
+			String rootElement) {
+		return readers.computeIfAbsent(resultClass.getName() + '\u0000' + rootElement,
+				key -> new ApiResultReader(resultClass, rootElement));
+	}
+
+	/**
+	 * Reads an entire result from {@code in}.
+	 * 
+	 * @param in
+	 *            the JSON output of the API
+	 * @return the result
+	 * @throws IOException
+	 *             in case of any reading or parsing error
+	 */
+	public ApiResult read(InputStream in) throws IOException {
+		return this.resultReader.readValue(in);
+	}
+
+	/**
+	 * Reads a result from {@code in}, handing every article to
+	 * {@code consumer} as soon as it has been parsed. The result returned
+	 * contains all properties except for the articles. If the property holding
+	 * the articles cannot be determined for the result class, the entire
+	 * result is read and its articles are handed to {@code consumer}
+	 * afterwards.
+	 * 
+	 * @param in
+	 *            the JSON output of the API
+	 * @param consumer
+	 *            the consumer to hand the articles to
+	 * @return the result without articles
+	 * @throws IOException
+	 *             in case of any reading or parsing error
+	 */
+	public ApiResult stream(InputStream in, Consumer<Article> consumer) throws IOException {
+		if (this.articleReader == null) {
+			ApiResult result = this.read(in);
+
+			if (result.getArticles() != null) {
+				result.getArticles().forEach(consumer);
+			}
+
+			return result;
+		}
+
+		try (JsonParser parser = mapper.getFactory().createParser(in)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IOException("JSON object expected");
+			}
+
+			if (this.rootElement != null) {
+				this.moveToField(parser, this.rootElement);
+
+				if (parser.nextToken() != JsonToken.START_OBJECT) {
+					throw new IOException("JSON object expected in " + this.rootElement);
+				}
+			}
+
+			// Read articles one by one, collect all other properties
+			ObjectNode properties = mapper.createObjectNode();
+
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.getCurrentName();
+				JsonToken token = parser.nextToken();
+
+				if (name.equals(this.articlesProperty) && token == JsonToken.START_ARRAY) {
+					while (parser.nextToken() != JsonToken.END_ARRAY) {
+						Article article = this.articleReader.readValue(parser);
+
+						if (article != null) {
+							consumer.accept(article);
+						}
+					}
+				}
+				else {
+					properties.set(name, mapper.<JsonNode> readTree(parser));
+				}
+			}
+
+			return this.unwrappedResultReader.readValue(properties);
+		}
+	}
+
+	/**
+	 * Advances {@code parser} (positioned within an object) to the value of
+	 * the property {@code name}, skipping all other properties.
+	 * 
+	 * @param parser
+	 *            the parser
+	 * @param name
+	 *            the name of the property
+	 * @throws IOException
+	 *             if the object has no such property
+	 */
+	protected void moveToField(JsonParser parser, String name) throws IOException {
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			if (name.equals(parser.getCurrentName())) {
+				return;
+			}
+
+			parser.nextToken();
+			parser.skipChildren();
+		}
+
+		throw new IOException("JSON property " + name + " not found");
+	}
+
+	/**
+	 * Returns the article class of {@code field} if it is a collection of
+	 * articles.
+	 * 
+	 * @param field
+	 *            the field
+	 * @return the element class, or {@code null} if {@code field} is no
+	 *         collection of articles
+	 */
+	protected Class<?> getArticleElementClass(Field field) {
+		if (!Collection.class.isAssignableFrom(field.getType())
+				|| !(field.getGenericType() instanceof ParameterizedType)) {
+			return null;
+		}
+
+		Type[] arguments = ((ParameterizedType) field.getGenericType()).getActualTypeArguments();
+
+		if (arguments.length == 1 && arguments[0] instanceof Class
+				&& Article.class.isAssignableFrom((Class<?>) arguments[0])) {
+			return (Class<?>) arguments[0];
+		}
+
+		return null;
+	}
+}